@@ -5,11 +5,14 @@ import android.os.Bundle;
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 import org.avontuur.dcgracer.DCGRacer;
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.NioFileReader;
 
 public class AndroidLauncher extends AndroidApplication {
 	@Override
 	protected void onCreate (Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
+		BakedTerrainSource.setFileReader(new NioFileReader());
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
 		initialize(new DCGRacer(), config);
 	}
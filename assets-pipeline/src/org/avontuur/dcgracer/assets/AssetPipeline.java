@@ -0,0 +1,75 @@
+package org.avontuur.dcgracer.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ETC1;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.io.File;
+
+/**
+ * Turns the source art into the assets the game loads:
+ *
+ * - All sprites in assets-src/sprites are packed into a single texture atlas, sprites.atlas, so drawing sprites
+ *   doesn't need to switch textures. The atlas asks for mipmaps, which are generated when it's loaded.
+ * - Opaque textures that can't go into the atlas, because they are drawn repeated, get an ETC1 compressed variant
+ *   for Android, next to the png that the other platforms use.
+ *
+ * Run it with ./gradlew assets-pipeline:run after changing any of the source art, and commit the results.
+ */
+public class AssetPipeline {
+    // Name of the sprite atlas, without extension
+    private static final String SPRITE_ATLAS = "sprites";
+    // Textures, in the assets directory, that get an ETC1 variant. ETC1 has no alpha channel, so only for opaque
+    // textures.
+    private static final String[] ETC1_TEXTURES = {"background_mud.png"};
+
+    public static void main(String[] args) {
+        File sourceDir = new File(args.length > 0 ? args[0] : "assets-src");
+        File assetsDir = new File(args.length > 1 ? args[1] : "android/assets");
+
+        packSprites(new File(sourceDir, "sprites"), assetsDir);
+        compressTextures(assetsDir);
+    }
+
+    private static void packSprites(File spritesDir, File assetsDir) {
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        // Safe maximum texture size for OpenGL ES 2 devices; mipmaps need power of two sizes there.
+        settings.maxWidth = 2048;
+        settings.maxHeight = 2048;
+        settings.pot = true;
+        settings.filterMin = Texture.TextureFilter.MipMapLinearLinear;
+        settings.filterMag = Texture.TextureFilter.Linear;
+        // Keep sprites apart, and repeat their edges into the padding, so smaller mipmap levels don't mix in
+        // neighbouring sprites.
+        settings.paddingX = 4;
+        settings.paddingY = 4;
+        settings.duplicatePadding = true;
+
+        TexturePacker.process(settings, spritesDir.getPath(), assetsDir.getPath(), SPRITE_ATLAS);
+    }
+
+    private static void compressTextures(File assetsDir) {
+        // Pixmaps and the ETC1 encoder are native code.
+        GdxNativesLoader.load();
+
+        for (String name : ETC1_TEXTURES) {
+            FileHandle png = new FileHandle(new File(assetsDir, name));
+            Pixmap pixmap = new Pixmap(png);
+            // The encoder only takes RGB pixmaps.
+            Pixmap rgbPixmap = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Pixmap.Format.RGB888);
+            rgbPixmap.drawPixmap(pixmap, 0, 0);
+
+            ETC1.ETC1Data etc1Data = ETC1.encodeImagePKM(rgbPixmap);
+            FileHandle etc1 = png.sibling(png.nameWithoutExtension() + ".etc1");
+            etc1Data.write(etc1);
+            System.out.println("Compressed " + png.path() + " to " + etc1.path());
+
+            etc1Data.dispose();
+            rgbPixmap.dispose();
+            pixmap.dispose();
+        }
+    }
+}
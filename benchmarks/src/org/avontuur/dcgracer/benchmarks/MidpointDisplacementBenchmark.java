@@ -0,0 +1,66 @@
+package org.avontuur.dcgracer.benchmarks;
+
+import org.avontuur.dcgracer.utils.ForkJoinMidpointDisplacement;
+import org.avontuur.dcgracer.utils.GameMath;
+import org.avontuur.dcgracer.utils.MidpointDisplacement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a raw height map with the midpoint displacement algorithm: the original API that returns a new array,
+ * and the seedable generator filling an existing array, both single-threaded and with fork-join.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MidpointDisplacementBenchmark {
+    @Param({"5", "8", "11", "14", "16"})
+    public int numIterations;
+
+    @Param({"0.5", "0.78", "0.91"})
+    public float roughness;
+
+    private static final long SEED = 42;
+
+    private float[] values;
+    private ForkJoinMidpointDisplacement forkJoinMidpointDisplacement;
+
+    @Setup
+    public void setup() {
+        values = new float[MidpointDisplacement.numElements(numIterations)];
+        forkJoinMidpointDisplacement = new ForkJoinMidpointDisplacement();
+    }
+
+    // All benchmarks use the same range and first/last Y as the game's terrain
+
+    @Benchmark
+    public float[] midpointDisplacement2D() {
+        return GameMath.midpointDisplacement2D(numIterations, 18f, 9f, 18f, roughness);
+    }
+
+    @Benchmark
+    public float[] generateIntoArray() {
+        MidpointDisplacement.generate(values, numIterations, 18f, 9f, 18f, roughness, SEED);
+        return values;
+    }
+
+    @Benchmark
+    public float[] generateForkJoin() {
+        forkJoinMidpointDisplacement.generate(values, numIterations, 18f, 9f, 18f, roughness, SEED);
+        return values;
+    }
+}
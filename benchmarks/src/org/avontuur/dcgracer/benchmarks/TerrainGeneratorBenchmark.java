@@ -0,0 +1,42 @@
+package org.avontuur.dcgracer.benchmarks;
+
+import org.avontuur.dcgracer.utils.TerrainGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a full set of terrain data: height map plus conversion to world coordinates. The scaleX values are the
+ * data point spacings of the terrain profiles tried out in LandscapeUpdateSystem.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainGeneratorBenchmark {
+    @Param({"5", "8", "11", "14", "16"})
+    public int numIterations;
+
+    @Param({"0.02", "0.2", "2"})
+    public float scaleX;
+
+    @Param({"0.5", "0.78", "0.91"})
+    public float roughness;
+
+    @Benchmark
+    public float[] generateTerrainData() {
+        return TerrainGenerator.generateTerrainData(numIterations, 18f, scaleX, 0.25f, 0, 18f / 2 * 0.25f,
+                roughness);
+    }
+}
@@ -0,0 +1,93 @@
+package org.avontuur.dcgracer.benchmarks;
+
+import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.utils.ShortArray;
+
+import org.avontuur.dcgracer.system.TerrainRenderingSystem;
+import org.avontuur.dcgracer.utils.ProceduralTerrainSource;
+import org.avontuur.dcgracer.utils.TerrainGenerator;
+import org.avontuur.dcgracer.utils.TerrainSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating a single terrain segment the way LandscapeUpdateSystem and TerrainRenderingSystem do when a segment
+ * scrolls into view: slicing and closing the segment polygon, and calculating the vertex data of its mesh. Uploading
+ * the mesh is left out, as there's no GL context. The result is the number of segments that can be created per
+ * second. earClipping is the general purpose triangulation the terrain used to be rendered with, for comparison.
+ *
+ * numIterations is the number of midpoint displacement iterations per chunk of terrain, as in
+ * {@link ProceduralTerrainSource}. Chunks are joined up until there are enough data points for a segment, so every
+ * segment has exactly terrainDataPointsPerSegment data points.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainTriangulationBenchmark {
+    // Size of the terrain texture, in pixels; the game uses 2 meters per texture.
+    private static final int TEXTURE_SIZE = 256;
+    private static final long SEED = 42;
+
+    @Param({"25", "50", "100", "200", "400"})
+    public int terrainDataPointsPerSegment;
+
+    @Param({"8", "11"})
+    public int numIterations;
+
+    @Param({"0.5", "0.78", "0.91"})
+    public float roughness;
+
+    private float[] terrainData;
+    private float[] meshVertices;
+    private EarClippingTriangulator triangulator;
+
+    @Setup
+    public void setup() {
+        terrainData = generateTerrainData(terrainDataPointsPerSegment);
+        meshVertices = new float[TerrainRenderingSystem.numMeshVertexElements(terrainDataPointsPerSegment)];
+        triangulator = new EarClippingTriangulator();
+    }
+
+    // Generates at least the given number of data points, in consecutive chunks that share their boundary points.
+    private float[] generateTerrainData(int numDataPoints) {
+        TerrainSource terrainSource = new ProceduralTerrainSource(numIterations, 18f, 0.2f, 0.25f, roughness, -1,
+                SEED);
+        int pointsPerChunk = terrainSource.getPointsPerChunk();
+        int numChunks = Math.max(1, (numDataPoints - 1 + pointsPerChunk - 2) / (pointsPerChunk - 1));
+        float[] chunk = new float[pointsPerChunk * 2];
+        float[] data = new float[(numChunks * (pointsPerChunk - 1) + 1) * 2];
+        for (int i = 0; i < numChunks; i++) {
+            terrainSource.getChunk(i, chunk);
+            System.arraycopy(chunk, 0, data, i * (pointsPerChunk - 1) * 2, chunk.length);
+        }
+        return data;
+    }
+
+    @Benchmark
+    public float[] createSegment() {
+        float[] segment = TerrainGenerator.createSegmentPolygon(terrainData, 0, terrainDataPointsPerSegment * 2);
+        TerrainRenderingSystem.computeTerrainMeshVertices(segment, TEXTURE_SIZE / 2, TEXTURE_SIZE, TEXTURE_SIZE,
+                meshVertices);
+        return meshVertices;
+    }
+
+    @Benchmark
+    public ShortArray earClipping() {
+        float[] segment = TerrainGenerator.createSegmentPolygon(terrainData, 0, terrainDataPointsPerSegment * 2);
+        return triangulator.computeTriangles(segment);
+    }
+}
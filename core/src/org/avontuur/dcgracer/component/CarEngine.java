@@ -15,6 +15,9 @@ public class CarEngine extends Component {
     public long carEngineSoundId = -1;
     // current pitch of car engine sound
     public float currentPitch = 1;
+    // pitch last set on the playing car engine sound, so it's only passed on to the audio backend when it changes;
+    // -1 if it hasn't been set yet
+    public float soundPitch = -1;
     // whether the car's accelerator is pressed
     public boolean acceleratorPressed = false;
 }
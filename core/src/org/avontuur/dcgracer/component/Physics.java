@@ -1,15 +1,72 @@
 package org.avontuur.dcgracer.component;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
+import com.artemis.annotations.DelayedComponentRemoval;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 
 /**
  * Created by Bram Avontuur on 2016-04-04.
  *
  * Components that holds a box2d Body object.
+ *
+ * Pooled, as physics entities come and go all the time (terrain segments, for one). The body is destroyed by
+ * Box2dWorldSystem when the entity is deleted, or the component is removed from it; the removal is delayed until
+ * after the entity subscriptions have been notified, so the body can still be found.
  */
-public class Physics extends Component {
+@DelayedComponentRemoval
+public class Physics extends PooledComponent {
     public Body body;
 
+    // Transform of the body to use for rendering, maintained by Box2dWorldSystem. With a fixed physics time step,
+    // this is interpolated between the two most recent physics steps so movement looks smooth at any frame rate.
+    public final Vector2 position = new Vector2();
+    public final Vector2 worldCenter = new Vector2();
+    public float angle;
+    // Velocity of the body's center of mass after the most recent physics step
+    public final Vector2 linearVelocity = new Vector2();
+
+    // Transform of the body before the most recent physics step
+    public final Vector2 previousPosition = new Vector2();
+    public final Vector2 previousWorldCenter = new Vector2();
+    public float previousAngle;
+
+    // Center of mass in body coordinates, read once when the body enters the physics system. The world center is
+    // derived from it, so bodies must have their fixtures before the entity is added.
+    public final Vector2 localCenter = new Vector2();
+
+    // Maintained by Box2dWorldSystem as well. Static bodies never move, and sleeping bodies don't move until they
+    // wake up; their transforms are left alone.
+    public boolean staticBody;
+    // Whether the body was awake after the most recent frame; always false for static bodies
+    public boolean awake;
+    // Whether the transform above changed in the most recent frame
+    public boolean moved;
+
+    // Maintained by BodyActivationSystem: whether the body takes part in the simulation, and the horizontal extent
+    // of its fixtures relative to its position, in world units
+    public boolean active = true;
+    public float extentLeft;
+    public float extentRight;
+
     public Physics() {}
+
+    @Override
+    protected void reset() {
+        body = null;
+        position.setZero();
+        worldCenter.setZero();
+        angle = 0;
+        linearVelocity.setZero();
+        previousPosition.setZero();
+        previousWorldCenter.setZero();
+        previousAngle = 0;
+        localCenter.setZero();
+        staticBody = false;
+        awake = false;
+        moved = false;
+        active = true;
+        extentLeft = 0;
+        extentRight = 0;
+    }
 }
@@ -1,13 +0,0 @@
-package org.avontuur.dcgracer.component;
-
-import com.artemis.Component;
-
-/**
- * Created by Bram Avontuur on 2016-11-28.
- */
-public class PolygonRegion extends Component {
-    public com.badlogic.gdx.graphics.g2d.PolygonRegion polygonRegion;
-
-    public PolygonRegion() {
-    }
-}
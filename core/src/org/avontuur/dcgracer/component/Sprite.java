@@ -7,6 +7,13 @@ import com.artemis.Component;
  */
 public class Sprite extends Component {
     public com.badlogic.gdx.graphics.g2d.Sprite sprite;
+    // Distance from the sprite's origin to its farthest corner, in world units. The sprite stays within this distance
+    // of its origin however it's rotated. Maintained by SpriteRenderingSystem.
+    public float boundingRadius;
+    // Offset from the body's position to the sprite's position (bottom-left corner), in world units. Set by
+    // SpritePositionSystem, from the shape of the body.
+    public float offsetX;
+    public float offsetY;
     public Sprite() {
     }
 }
@@ -1,12 +1,25 @@
 package org.avontuur.dcgracer.component;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 
 /**
- * Placeholder for game objects that represent terrain
+ * Game objects that represent a segment of the terrain.
  * Created by Bram Avontuur on 2016-11-27.
  */
 
-public class Terrain extends Component {
+public class Terrain extends PooledComponent {
+    // Vertices of the closed polygon outlining this terrain segment, in world units, as sequential x and y
+    // coordinates: [x0, y0, x1, y1, ..]. Owned by LandscapeUpdateSystem, which recycles it for new segments.
+    public float[] vertices;
+    // Vertex data of the segment's mesh, if it was computed while the segment was cut ahead of time; see
+    // TerrainRenderingSystem. Only needed until the mesh is created.
+    public float[] meshVertices;
+
     public Terrain() {}
+
+    @Override
+    protected void reset() {
+        vertices = null;
+        meshVertices = null;
+    }
 }
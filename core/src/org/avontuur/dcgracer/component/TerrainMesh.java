@@ -0,0 +1,23 @@
+package org.avontuur.dcgracer.component;
+
+import com.artemis.PooledComponent;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Textured mesh of a terrain segment, ready to be drawn. Owned by TerrainRenderingSystem.
+ */
+public class TerrainMesh extends PooledComponent {
+    public Mesh mesh;
+    // Bounding box of the mesh, in pixel units
+    public final Rectangle bounds = new Rectangle();
+
+    public TerrainMesh() {
+    }
+
+    @Override
+    protected void reset() {
+        mesh = null;
+        bounds.set(0, 0, 0, 0);
+    }
+}
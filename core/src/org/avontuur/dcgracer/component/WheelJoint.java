@@ -1,14 +1,22 @@
 package org.avontuur.dcgracer.component;
 
 import com.artemis.Component;
+import com.artemis.annotations.DelayedComponentRemoval;
 
 /**
  * Component for a wheel joint.
  * Created by Bram Avontuur on 2016-12-28.
+ *
+ * Removal is delayed until after the entity subscriptions have been notified, so Box2dWorldSystem can still destroy
+ * the joint when the component is removed from an entity that lives on.
  */
 
+@DelayedComponentRemoval
 public class WheelJoint extends Component{
     public com.badlogic.gdx.physics.box2d.joints.WheelJoint wheelJoint;
+    // Motor settings last applied to the joint, so they're only passed on to Box2D when they change
+    public boolean motorEnabled;
+    public float motorSpeed;
 
     public WheelJoint() {}
 }
@@ -4,59 +4,158 @@ package org.avontuur.dcgracer.manager;
  * Created by Bram Avontuur on 2016-11-26.
  *
  * This class manages all static assets.
+ *
+ * Assets are loaded asynchronously by an AssetManager, a little every frame (see {@link #update(int)}), so screens
+ * keep rendering while assets decode. Assets the game can't start without are loaded first; the rest keeps loading
+ * while the game is already running, and the fields for those assets stay null until they are loaded.
  */
 
-import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 import org.avontuur.dcgracer.DCGRacer;
 
 public class ResourceManager {
     public static final ResourceManager instance = new ResourceManager();
 
+    private static final String SPRITE_ATLAS = "sprites.atlas";
+    private static final String CAR_ENGINE_SOUND = "car engine.wav";
+
     // textures
     public Texture textureTerrainMud;
-    public Texture gameLogo;
-    public Texture carBody;
-    public Texture jerryCan;
-    public Texture wheel;
-    public Texture coin;
 
-    // audio samples
+    // sprites, all packed into a single texture by the asset pipeline
+    public TextureAtlas spriteAtlas;
+    public TextureRegion gameLogo;
+    public TextureRegion carBody;
+    public TextureRegion jerryCan;
+    public TextureRegion wheel;
+    public TextureRegion coin;
+
+    // audio samples; not needed to start the game
     public Sound carEngineSound;
 
+    private AssetManager assetManager;
+    // file name of the terrain texture, which depends on the platform
+    private String terrainMudFileName;
+    private boolean criticalAssetsLoaded;
+    private boolean allAssetsLoaded;
+
     // singleton: prevent instantiation from other classes
     private ResourceManager() {
     }
 
-    private void loadTextures() {
-        textureTerrainMud = new Texture(Gdx.files.internal("background_mud.png"));
-        gameLogo = new Texture(Gdx.files.internal("ball.png"));
-        carBody = new Texture(Gdx.files.internal("car body.png"));
-        jerryCan = new Texture(Gdx.files.internal("jerrycan.png"));
-        wheel = new Texture(Gdx.files.internal("wheel.png"));
-        coin = new Texture(Gdx.files.internal("coin.png"));
+    /**
+     * Queues all assets for loading. Loading only happens when calling {@link #update(int)}.
+     */
+    public void queueAll() {
+        DCGRacer.log.info("Loading resources");
+        assetManager = new AssetManager();
+        criticalAssetsLoaded = false;
+        allAssetsLoaded = false;
+
+        // The asset manager loads assets in the order they are queued, so critical assets go first.
+        queueTextures();
+        queueSoundEffects();
+        queueMusic();
     }
 
-    private void loadSoundEffects() {
+    /**
+     * Loads assets for at most the given time (a little more if a single asset takes longer). Call this every frame
+     * until it returns true.
+     *
+     * @param millis Time budget, in milliseconds
+     * @return True if all assets are loaded
+     */
+    public boolean update(int millis) {
+        if (allAssetsLoaded) {
+            return true;
+        }
 
-        carEngineSound = Gdx.audio.newSound(Gdx.files.internal("car engine.wav"));
+        boolean done = assetManager.update(millis);
+        if (!criticalAssetsLoaded && assetManager.isLoaded(SPRITE_ATLAS) && assetManager.isLoaded(terrainMudFileName)) {
+            assignTextures();
+            criticalAssetsLoaded = true;
+            DCGRacer.log.info("Loaded critical resources");
+        }
+        if (done) {
+            assignSoundEffects();
+            allAssetsLoaded = true;
+            DCGRacer.log.info("Loaded all resources");
+        }
+        return done;
     }
 
-    private void loadMusic() {
+    /**
+     * @return True if all assets needed to start the game are loaded
+     */
+    public boolean isCriticalLoaded() {
+        return criticalAssetsLoaded;
     }
 
-    public void loadAll() {
-        DCGRacer.log.info("Loading resources");
-        loadMusic();
-        loadSoundEffects();
-        loadTextures();
-        DCGRacer.log.info("Loaded all resources");
+    /**
+     * @return Fraction of the assets loaded, 0 <= progress <= 1
+     */
+    public float getProgress() {
+        return assetManager.getProgress();
+    }
+
+    private void queueTextures() {
+        // Android gets the ETC1 compressed variant made by the asset pipeline, which takes a fraction of the memory.
+        // Mipmaps can't be generated for compressed textures, so the other platforms get a mipmapped png.
+        TextureLoader.TextureParameter terrainParameter = new TextureLoader.TextureParameter();
+        terrainMudFileName = "background_mud.etc1";
+        if (Gdx.app.getType() != Application.ApplicationType.Android
+                || !Gdx.files.internal(terrainMudFileName).exists()) {
+            terrainMudFileName = "background_mud.png";
+            terrainParameter.genMipMaps = true;
+        }
+        assetManager.load(terrainMudFileName, Texture.class, terrainParameter);
+
+        // Mipmaps for the atlas are requested by the atlas file itself
+        assetManager.load(SPRITE_ATLAS, TextureAtlas.class);
+    }
+
+    private void queueSoundEffects() {
+        assetManager.load(CAR_ENGINE_SOUND, Sound.class);
+    }
+
+    private void queueMusic() {
+    }
+
+    private void assignTextures() {
+        textureTerrainMud = assetManager.get(terrainMudFileName, Texture.class);
+
+        spriteAtlas = assetManager.get(SPRITE_ATLAS, TextureAtlas.class);
+        gameLogo = findSprite("ball");
+        carBody = findSprite("car body");
+        jerryCan = findSprite("jerrycan");
+        wheel = findSprite("wheel");
+        coin = findSprite("coin");
+    }
+
+    private void assignSoundEffects() {
+        carEngineSound = assetManager.get(CAR_ENGINE_SOUND, Sound.class);
+    }
+
+    private TextureRegion findSprite(String name) {
+        TextureRegion region = spriteAtlas.findRegion(name);
+        if (region == null) {
+            throw new GdxRuntimeException("Sprite '" + name + "' not found in atlas; run the asset pipeline");
+        }
+        return region;
     }
 
     public void stopSounds() {
-        carEngineSound.stop();
+        if (carEngineSound != null) {
+            carEngineSound.stop();
+        }
     }
-}
\ No newline at end of file
+}
@@ -20,10 +20,21 @@ public enum ScreenEnum {
     },
     GAME {
         public Screen getScreen(Object... params) { return new GameScreen(); }
+
+        // Restarting the game reuses its world instead of building a new one.
+        public boolean isReusable() { return true; }
     },
     GAMEOVER {
         public Screen getScreen(Object... params) { return new GameOverScreen(); }
     };
 
     public abstract Screen getScreen(Object... params);
+
+    /**
+     * @return True if a single instance of the screen is kept, and shown again every time, instead of creating a new
+     *         one each time it's shown. The screen is responsible for starting over in {@link Screen#show()}.
+     */
+    public boolean isReusable() {
+        return false;
+    }
 }
@@ -2,6 +2,7 @@ package org.avontuur.dcgracer.manager;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.utils.ObjectMap;
 
 import org.avontuur.dcgracer.base.BaseScene2DScreen;
 
@@ -17,6 +18,9 @@ public class ScreenManager {
     // Reference to game
     private Game game;
 
+    // Screens that are kept around to be shown again
+    private final ObjectMap<ScreenEnum, Screen> reusableScreens = new ObjectMap<ScreenEnum, Screen>();
+
     // Singleton: private constructor
     private ScreenManager() {
         super();
@@ -42,12 +46,37 @@ public class ScreenManager {
         Screen currentScreen = game.getScreen();
 
         // Show new screen
-        Screen newScreen = screenEnum.getScreen(params);
+        Screen newScreen;
+        if (screenEnum.isReusable()) {
+            newScreen = reusableScreens.get(screenEnum);
+            if (newScreen == null) {
+                newScreen = screenEnum.getScreen(params);
+                reusableScreens.put(screenEnum, newScreen);
+            }
+        } else {
+            newScreen = screenEnum.getScreen(params);
+        }
         game.setScreen(newScreen);
 
-        // Dispose previous screen
-        if (currentScreen != null) {
+        // Dispose previous screen, unless it's kept
+        if (currentScreen != null && !isReusable(currentScreen)) {
+            currentScreen.dispose();
+        }
+    }
+
+    // Dispose all screens, when the game exits
+    public void dispose() {
+        Screen currentScreen = game.getScreen();
+        if (currentScreen != null && !isReusable(currentScreen)) {
             currentScreen.dispose();
         }
+        for (Screen screen : reusableScreens.values()) {
+            screen.dispose();
+        }
+        reusableScreens.clear();
+    }
+
+    private boolean isReusable(Screen screen) {
+        return reusableScreens.containsValue(screen, true);
     }
 }
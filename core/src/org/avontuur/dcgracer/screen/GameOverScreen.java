@@ -17,8 +17,12 @@ import org.avontuur.dcgracer.manager.ScreenManager;
  * Created by Bram Avontuur on 2016-03-12.
  */
 public class GameOverScreen implements Screen {
+    private static final String TEXT = "HE DED";
+
     private SpriteBatch batch;
     private BitmapFont font;
+    // Layout of the text, which never changes
+    private final GlyphLayout glyphLayout = new GlyphLayout();
     private final long startTime;
 
     public GameOverScreen() {
@@ -26,6 +30,7 @@ public class GameOverScreen implements Screen {
         font = new BitmapFont();
         font.getData().setScale(2.0f);
         font.setColor(Color.RED);
+        glyphLayout.setText(font, TEXT);
         startTime = System.currentTimeMillis();
     }
 
@@ -45,14 +50,11 @@ public class GameOverScreen implements Screen {
         Gdx.gl.glClearColor(1, 1, 1, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        GlyphLayout glyphLayout = new GlyphLayout();
-        String item = "HE DED";
-        glyphLayout.setText(font, item);
         float positionX = Gdx.graphics.getWidth() / 2 - glyphLayout.width / 2;
         float positionY = Gdx.graphics.getHeight() / 2 - glyphLayout.height / 2;
 
         batch.begin();
-        font.draw(batch, item, positionX, positionY);
+        font.draw(batch, glyphLayout, positionX, positionY);
         batch.end();
 
         if (System.currentTimeMillis() - startTime > 3000) {
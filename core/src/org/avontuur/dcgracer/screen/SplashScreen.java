@@ -2,40 +2,74 @@ package org.avontuur.dcgracer.screen;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 
+import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.base.BaseScene2DScreen;
+import org.avontuur.dcgracer.manager.ResourceManager;
+import org.avontuur.dcgracer.manager.ScreenEnum;
+import org.avontuur.dcgracer.manager.ScreenManager;
 
 /**
- * This class represents the splash screen displayed for a short time at game startup.
+ * This class represents the splash screen displayed at game startup. It drives the loading of the game's resources,
+ * showing the progress, and moves on to the game when the resources it needs are loaded.
  *
  * Created by Bram Avontuur on 2016-02-28.
  */
 public class SplashScreen implements Screen {
+    // Show the splash screen for at least this long, so users will see it.
+    private static final long SPLASH_MINIMUM_MILLIS = 1000L;
+    // Time per frame, in milliseconds, spent on loading resources. Keeps the splash screen responsive.
+    private static final int LOADING_MILLIS_PER_FRAME = 12;
+    // Height of the progress bar, as fraction of the screen height
+    private static final float PROGRESS_BAR_HEIGHT = 0.02f;
+
     private SpriteBatch batch;
+    private ShapeRenderer shapeRenderer;
     private Texture txtrGameLogo;
+    private final long startTime;
 
     public SplashScreen() {
         batch = new SpriteBatch();
+        shapeRenderer = new ShapeRenderer();
         txtrGameLogo = new Texture(Gdx.files.internal("badlogic.jpg"));
+        startTime = System.currentTimeMillis();
     }
 
     @Override
     public void render(float delta) {
+        ResourceManager.instance.update(LOADING_MILLIS_PER_FRAME);
+
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
         batch.begin();
         batch.draw(txtrGameLogo, 0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
         batch.end();
+
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(Color.WHITE);
+        shapeRenderer.rect(0, 0, Gdx.graphics.getWidth() * ResourceManager.instance.getProgress(),
+                Gdx.graphics.getHeight() * PROGRESS_BAR_HEIGHT);
+        shapeRenderer.end();
+
+        if (ResourceManager.instance.isCriticalLoaded()
+                && System.currentTimeMillis() - startTime >= SPLASH_MINIMUM_MILLIS) {
+            DCGRacer.log.debug("Splash screen done after " + (System.currentTimeMillis() - startTime) + "ms; "
+                    + "it's game time!");
+            ScreenManager.getInstance().showScreen(ScreenEnum.GAME);
+        }
     }
 
     @Override
     public void dispose() {
         txtrGameLogo.dispose();
+        shapeRenderer.dispose();
         batch.dispose();
     }
 
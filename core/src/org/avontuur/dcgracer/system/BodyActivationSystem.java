@@ -0,0 +1,172 @@
+package org.avontuur.dcgracer.system;
+
+import com.artemis.Aspect;
+import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.utils.Array;
+
+import org.avontuur.dcgracer.component.Physics;
+import org.avontuur.dcgracer.utils.TrackingCamera;
+
+/**
+ * Takes bodies that are far away from the camera out of the physics simulation, and puts them back in before they
+ * come into view. Inactive bodies cost the physics world next to nothing, so the time a step takes depends on what's
+ * around the camera, not on the length of the level.
+ *
+ * The world scrolls horizontally, so only the horizontal distance to the viewport counts. Bodies within the margin
+ * of the viewport are activated; they are only deactivated once they are further away than the margin plus the
+ * hysteresis, so bodies around the margin don't keep switching as the camera moves back and forth.
+ *
+ * The horizontal extent of each body is worked out once, when it's added. Static bodies keep their extent; for other
+ * bodies it's a bound that holds at any angle, around their position.
+ */
+public class BodyActivationSystem extends IteratingSystem {
+    private ComponentMapperSystem mappers;
+    private CameraUpdateSystem cameraUpdateSystem;
+
+    // Bodies closer to the viewport than this, in world units, are active
+    private final float margin;
+    // Additional distance, in world units, before a body is deactivated
+    private final float hysteresis;
+
+    // Horizontal range in which bodies are kept active, and range outside of which they are deactivated, this frame
+    private float activateLeft;
+    private float activateRight;
+    private float deactivateLeft;
+    private float deactivateRight;
+    // number of inactive bodies after the last frame
+    private int inactiveCount;
+
+    // Scratch space for computing the extent of a body: a shape vertex, and the extents so far
+    private final Vector2 vertex = new Vector2();
+    private float extentLeft;
+    private float extentRight;
+    private float radius;
+
+    /**
+     * @param margin Distance outside of the viewport, in world units, within which bodies are active
+     * @param hysteresis Additional distance, in world units, bodies have to be away from the viewport before they
+     *                   are deactivated
+     */
+    public BodyActivationSystem(float margin, float hysteresis) {
+        super(Aspect.all(Physics.class));
+        this.margin = margin;
+        this.hysteresis = hysteresis;
+    }
+
+    @Override
+    protected void inserted(int entityId) {
+        super.inserted(entityId);
+        Physics physics = mappers.physicsComponents.get(entityId);
+        computeExtent(physics);
+        physics.active = physics.body.isActive();
+    }
+
+    @Override
+    protected void begin() {
+        super.begin();
+        TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
+        float halfWidth = cam.viewportWidth * cam.zoom / 2;
+        activateLeft = cam.position.x - halfWidth - margin;
+        activateRight = cam.position.x + halfWidth + margin;
+        deactivateLeft = activateLeft - hysteresis;
+        deactivateRight = activateRight + hysteresis;
+        inactiveCount = 0;
+    }
+
+    @Override
+    protected void process(int entityId) {
+        Physics physics = mappers.physicsComponents.get(entityId);
+        float left = physics.position.x + physics.extentLeft;
+        float right = physics.position.x + physics.extentRight;
+
+        if (physics.active) {
+            if (right < deactivateLeft || left > deactivateRight) {
+                physics.body.setActive(false);
+                physics.active = false;
+            }
+        } else if (right >= activateLeft && left <= activateRight) {
+            physics.body.setActive(true);
+            physics.active = true;
+        }
+
+        if (!physics.active) {
+            inactiveCount++;
+        }
+    }
+
+    /**
+     * @return Number of bodies taken out of the simulation after the last frame
+     */
+    public int getInactiveCount() {
+        return inactiveCount;
+    }
+
+    // Sets the horizontal extent of the body's fixtures, relative to the body's position.
+    private void computeExtent(Physics physics) {
+        Body body = physics.body;
+        boolean staticBody = body.getType() == BodyDef.BodyType.StaticBody;
+        Transform transform = body.getTransform();
+        extentLeft = Float.MAX_VALUE;
+        extentRight = -Float.MAX_VALUE;
+        radius = 0;
+
+        Array<Fixture> fixtures = body.getFixtureList();
+        for (int i = 0; i < fixtures.size; i++) {
+            Shape shape = fixtures.get(i).getShape();
+            switch (shape.getType()) {
+                case Circle:
+                    CircleShape circle = (CircleShape)shape;
+                    addVertex(transform, vertex.set(circle.getPosition()), circle.getRadius());
+                    break;
+                case Polygon:
+                    PolygonShape polygon = (PolygonShape)shape;
+                    for (int v = 0, n = polygon.getVertexCount(); v < n; v++) {
+                        polygon.getVertex(v, vertex);
+                        addVertex(transform, vertex, 0);
+                    }
+                    break;
+                case Chain:
+                    ChainShape chain = (ChainShape)shape;
+                    for (int v = 0, n = chain.getVertexCount(); v < n; v++) {
+                        chain.getVertex(v, vertex);
+                        addVertex(transform, vertex, 0);
+                    }
+                    break;
+                case Edge:
+                    EdgeShape edge = (EdgeShape)shape;
+                    edge.getVertex1(vertex);
+                    addVertex(transform, vertex, 0);
+                    edge.getVertex2(vertex);
+                    addVertex(transform, vertex, 0);
+                    break;
+            }
+        }
+
+        if (staticBody && extentLeft <= extentRight) {
+            physics.extentLeft = extentLeft;
+            physics.extentRight = extentRight;
+        } else {
+            // Moving bodies may turn; without fixtures, there's only the position.
+            physics.extentLeft = -radius;
+            physics.extentRight = radius;
+        }
+    }
+
+    // Grows the extents computed by computeExtent to include a vertex, in body coordinates, with a radius around it.
+    private void addVertex(Transform transform, Vector2 vertex, float vertexRadius) {
+        radius = Math.max(radius, vertex.len() + vertexRadius);
+        float x = transform.mul(vertex).x - transform.vals[Transform.POS_X];
+        extentLeft = Math.min(extentLeft, x - vertexRadius);
+        extentRight = Math.max(extentRight, x + vertexRadius);
+    }
+}
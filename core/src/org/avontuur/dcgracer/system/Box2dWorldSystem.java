@@ -1,54 +1,344 @@
 package org.avontuur.dcgracer.system;
 
+import com.artemis.Aspect;
 import com.artemis.BaseSystem;
+import com.artemis.EntitySubscription;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.JointEdge;
+import com.badlogic.gdx.physics.box2d.Transform;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+import org.avontuur.dcgracer.component.Physics;
+import org.avontuur.dcgracer.component.WheelJoint;
 
 /**
  * Created by Bram Avontuur on 2016-11-27.
  *
- * System that manages the Box2D physics world and keeps it ticking
+ * System that manages the Box2D physics world and keeps it ticking.
+ *
+ * By default the physics world is advanced in fixed time steps: frame time is accumulated, and the world is stepped
+ * for as many whole steps as fit in the accumulated time. The transforms that are rendered are interpolated between
+ * the last two steps, using the fraction of a step left in the accumulator. This decouples the physics cost and
+ * stability from the frame rate.
+ *
+ * Right after stepping, the state of all moving bodies is read back into their Physics components, in a single pass
+ * over the bodies: the transform (position and rotation) and the linear velocity. Other systems read body state from
+ * the components instead of asking the bodies, as every call into Box2D crosses into native code. The world center
+ * is derived from the transform, and the angle from its rotation. Like Box2D's own angle, it counts full turns, as
+ * long as a body turns less than half a turn between readbacks.
+ *
+ * The bodies and joints of deleted entities are destroyed by this system as well, together, right before the world is
+ * stepped again; never while the world is being stepped. Destroying a body also destroys its joints: wheel joint
+ * components that refer to those are cleared.
  */
 public class Box2dWorldSystem extends BaseSystem {
     private static final float GRAVITY = -9.8f;
+    private static final int VELOCITY_ITERATIONS = 6;
+    private static final int POSITION_ITERATIONS = 2;
+
+    // Duration, in seconds, of a single physics step in fixed time step mode.
+    public static final float FIXED_TIME_STEP = 1 / 60f;
+    // Maximum number of physics steps per frame. Any time beyond that is dropped, so a slow frame can never cause
+    // an even slower next frame.
+    public static final int MAX_STEPS_PER_FRAME = 5;
+    // Maximum frame time still acceptable for reliable physics processing in variable time step mode
+    public static final float MAX_VARIABLE_TIME_STEP = 1 / 15f;
+
+    private ComponentMapperSystem mappers;
 
     private World box2DWorld;
     private boolean pause;
+    private boolean fixedTimeStep;
+    // Frame time that has not been simulated yet, in seconds
+    private float accumulator;
+    // Interpolation factor between previous and current body transforms, 0 <= alpha <= 1
+    private float alpha = 1;
+    // All entities that have a presence in the physics world
+    private EntitySubscription physicsEntities;
+    // All entities with a wheel joint
+    private EntitySubscription wheelJointEntities;
+    // Bodies and joints of deleted entities, waiting to be destroyed
+    private final Array<Body> bodiesToDestroy = new Array<Body>();
+    private final Array<Joint> jointsToDestroy = new Array<Joint>();
+    // Scratch space for listing the bodies in the physics world
+    private final Array<Body> bodies = new Array<Body>();
+    // Scratch space for points read back from a body
+    private final Vector2 bodyPoint = new Vector2();
+
+    public Box2dWorldSystem() {
+        this(true);
+    }
+
+    /**
+     * @param fixedTimeStep True to advance the physics world in fixed time steps with interpolated transforms, false
+     *                      to advance it by the (capped) frame time.
+     */
+    public Box2dWorldSystem(boolean fixedTimeStep) {
+        this.fixedTimeStep = fixedTimeStep;
+    }
 
     @Override
     protected void initialize() {
         super.initialize();
 
         box2DWorld = new World(new Vector2(0, GRAVITY), true);
+        // Forces are applied once per frame, but may need to last for several steps (or wait for the next frame
+        // when no step is taken), so they are cleared manually.
+        box2DWorld.setAutoClearForces(false);
+
+        physicsEntities = world.getAspectSubscriptionManager().get(Aspect.all(Physics.class));
+        physicsEntities.addSubscriptionListener(new EntitySubscription.SubscriptionListener() {
+            @Override
+            public void inserted(IntBag entities) {
+                // New bodies have no previous transform yet; start out without interpolation.
+                int[] ids = entities.getData();
+                for (int i = 0, s = entities.size(); i < s; i++) {
+                    Physics physics = mappers.physicsComponents.get(ids[i]);
+                    physics.localCenter.set(physics.body.getLocalCenter());
+                    physics.previousAngle = physics.body.getAngle();
+                    savePreviousTransform(physics);
+                    physics.linearVelocity.set(physics.body.getLinearVelocity());
+                    physics.position.set(physics.previousPosition);
+                    physics.worldCenter.set(physics.previousWorldCenter);
+                    physics.angle = physics.previousAngle;
+                    physics.staticBody = physics.body.getType() == BodyDef.BodyType.StaticBody;
+                    physics.awake = !physics.staticBody;
+                    physics.moved = true;
+                }
+            }
+
+            @Override
+            public void removed(IntBag entities) {
+                int[] ids = entities.getData();
+                for (int i = 0, s = entities.size(); i < s; i++) {
+                    Physics physics = mappers.physicsComponents.get(ids[i]);
+                    if (physics.body != null) {
+                        bodiesToDestroy.add(physics.body);
+                        physics.body = null;
+                    }
+                }
+            }
+        });
+
+        wheelJointEntities = world.getAspectSubscriptionManager().get(Aspect.all(WheelJoint.class));
+        wheelJointEntities.addSubscriptionListener(new EntitySubscription.SubscriptionListener() {
+            @Override
+            public void inserted(IntBag entities) {
+            }
+
+            @Override
+            public void removed(IntBag entities) {
+                int[] ids = entities.getData();
+                for (int i = 0, s = entities.size(); i < s; i++) {
+                    WheelJoint wheelJoint = mappers.wheelJointComponents.get(ids[i]);
+                    if (wheelJoint.wheelJoint != null) {
+                        jointsToDestroy.add(wheelJoint.wheelJoint);
+                        wheelJoint.wheelJoint = null;
+                    }
+                }
+            }
+        });
     }
 
     @Override
     protected void processSystem() {
-        // Advance the world, by the amount of time that has elapsed since the last frame
-        // Generally in a real game, don't do this in the render loop, as you are tying the physics
-        // update rate to the frame rate, and vice versa
-        // TODO: see comment above, fine-tune these parameters.
-        float gameLoopDelta = world.getDelta();
-        //box2DWorld.step(1f/60f, 6, 2);
-        float slowDownFactor = 1f;
-        if (!this.pause) {
-            box2DWorld.step(gameLoopDelta * slowDownFactor, 6, 2);
+        destroyRemoved();
+
+        if (this.pause) {
+            return;
+        }
+
+        if (fixedTimeStep) {
+            stepFixed(world.getDelta());
+        } else {
+            box2DWorld.step(Math.min(world.getDelta(), MAX_VARIABLE_TIME_STEP), VELOCITY_ITERATIONS,
+                    POSITION_ITERATIONS);
+            box2DWorld.clearForces();
+            alpha = 1;
+        }
+
+        updateTransforms();
+    }
+
+    // Destroys the bodies and joints of deleted entities. Joints go first: they may be attached to one of the bodies,
+    // which would destroy them along with it.
+    private void destroyRemoved() {
+        for (int i = 0; i < jointsToDestroy.size; i++) {
+            box2DWorld.destroyJoint(jointsToDestroy.get(i));
+        }
+        jointsToDestroy.clear();
+
+        for (int i = 0; i < bodiesToDestroy.size; i++) {
+            Body body = bodiesToDestroy.get(i);
+            Array<JointEdge> jointEdges = body.getJointList();
+            for (int j = 0; j < jointEdges.size; j++) {
+                forgetWheelJoint(jointEdges.get(j).joint);
+            }
+            box2DWorld.destroyBody(body);
         }
+        bodiesToDestroy.clear();
+    }
 
-        // Example taken from other game (and read about this in the box2d docs somewhere):
-        /*
-        float frameTime = Math.min(SpasholeApp.core.getDelta(), FRAME_TIME_LIMIT);
-        accumulator += frameTime;
-        while (accumulator >= FIXED_SINGLE_TIME_STEP) {
-            SpasholeApp.box2dWorld.step(FIXED_SINGLE_TIME_STEP, 6, 2);
-            accumulator -= FIXED_SINGLE_TIME_STEP;
+    // Clears the wheel joint component, of an entity that's still around, that refers to a joint about to be
+    // destroyed.
+    private void forgetWheelJoint(Joint joint) {
+        IntBag entities = wheelJointEntities.getEntities();
+        int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            WheelJoint wheelJoint = mappers.wheelJointComponents.get(ids[i]);
+            if (wheelJoint.wheelJoint == joint) {
+                wheelJoint.wheelJoint = null;
+            }
         }
-        */
+    }
+
+    private void stepFixed(float delta) {
+        accumulator += delta;
+
+        int steps = Math.min((int)(accumulator / FIXED_TIME_STEP), MAX_STEPS_PER_FRAME);
+        for (int i = 0; i < steps; i++) {
+            if (i == steps - 1) {
+                // Only the transforms right before the final step are needed for interpolation
+                savePreviousTransforms();
+            }
+            box2DWorld.step(FIXED_TIME_STEP, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+            accumulator -= FIXED_TIME_STEP;
+        }
+
+        if (steps > 0) {
+            box2DWorld.clearForces();
+        }
+        if (steps == MAX_STEPS_PER_FRAME) {
+            // Can't keep up; drop the time that could not be simulated in this frame.
+            accumulator = Math.min(accumulator, FIXED_TIME_STEP);
+        }
+
+        alpha = Math.min(accumulator / FIXED_TIME_STEP, 1f);
+    }
+
+    private void savePreviousTransforms() {
+        IntBag entities = physicsEntities.getEntities();
+        int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            Physics physics = mappers.physicsComponents.get(ids[i]);
+            // Bodies that are sleeping before this step can't have moved since their transform was last saved. Ask
+            // the body rather than going by physics.awake: that's from the end of the last frame, and a contact in
+            // an earlier step of this frame may have woken it up since.
+            if (!physics.staticBody && physics.active && physics.body.isAwake()) {
+                savePreviousTransform(physics);
+            }
+        }
+    }
+
+    private void savePreviousTransform(Physics physics) {
+        Transform transform = physics.body.getTransform();
+        physics.previousPosition.set(transform.vals[Transform.POS_X], transform.vals[Transform.POS_Y]);
+        transform.mul(physics.previousWorldCenter.set(physics.localCenter));
+        physics.previousAngle = getAngle(transform, physics.previousAngle);
+    }
+
+    // Angle of a transform, the least number of radians away from a previous angle of the same body
+    private static float getAngle(Transform transform, float previousAngle) {
+        float angleDelta = (float)Math.atan2(transform.vals[Transform.SIN], transform.vals[Transform.COS])
+                - previousAngle;
+        // Drop the full turns
+        angleDelta -= MathUtils.round(angleDelta / MathUtils.PI2) * MathUtils.PI2;
+        return previousAngle + angleDelta;
+    }
+
+    // Read back the state of the bodies, and set the transforms to render with, interpolating between the previous
+    // and the current physics step. Static and sleeping bodies are skipped; a body that fell asleep gets one last
+    // update, to its final transform.
+    private void updateTransforms() {
+        IntBag entities = physicsEntities.getEntities();
+        int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            Physics physics = mappers.physicsComponents.get(ids[i]);
+            if (physics.staticBody) {
+                physics.moved = false;
+                continue;
+            }
+            Body body = physics.body;
+            boolean wasAwake = physics.awake;
+            // Inactive bodies are left where they are, like sleeping ones.
+            physics.awake = physics.active && body.isAwake();
+            physics.moved = physics.awake || wasAwake;
+            if (!physics.moved) {
+                continue;
+            }
+            if (!physics.awake) {
+                // Fell asleep: settle on the final transform, which is also where it continues from once woken up.
+                savePreviousTransform(physics);
+                physics.position.set(physics.previousPosition);
+                physics.worldCenter.set(physics.previousWorldCenter);
+                physics.angle = physics.previousAngle;
+                physics.linearVelocity.setZero();
+                continue;
+            }
+            Transform transform = body.getTransform();
+            physics.position.set(physics.previousPosition)
+                    .lerp(bodyPoint.set(transform.vals[Transform.POS_X], transform.vals[Transform.POS_Y]), alpha);
+            physics.worldCenter.set(physics.previousWorldCenter)
+                    .lerp(transform.mul(bodyPoint.set(physics.localCenter)), alpha);
+            float angle = getAngle(transform, physics.previousAngle);
+            physics.angle = physics.previousAngle + (angle - physics.previousAngle) * alpha;
+            physics.linearVelocity.set(body.getLinearVelocity());
+        }
+    }
+
+    @Override
+    protected void dispose() {
+        super.dispose();
+        box2DWorld.dispose();
+    }
+
+    /**
+     * Empties the physics world for a new game: destroys all bodies, and the joints between them. The world itself,
+     * and the native memory it has allocated, is kept. Physics components still referring to the bodies must not
+     * be used anymore.
+     */
+    public void reset() {
+        box2DWorld.getBodies(bodies);
+        for (int i = 0; i < bodies.size; i++) {
+            box2DWorld.destroyBody(bodies.get(i));
+        }
+        bodies.clear();
+        bodiesToDestroy.clear();
+        jointsToDestroy.clear();
+        accumulator = 0;
+        alpha = 1;
     }
 
     public void setPause(boolean pause) {
         this.pause = pause;
     }
+
+    /**
+     * @param fixedTimeStep True to advance the physics world in fixed time steps with interpolated transforms, false
+     *                      to advance it by the (capped) frame time.
+     */
+    public void setFixedTimeStep(boolean fixedTimeStep) {
+        this.fixedTimeStep = fixedTimeStep;
+        this.accumulator = 0;
+    }
+
+    public boolean isFixedTimeStep() {
+        return fixedTimeStep;
+    }
+
+    /**
+     * @return Fraction of a physics step between the previous and current body transforms that is being rendered.
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+
     /**
      * @return Reference to the box2d world
      */
@@ -5,7 +5,8 @@ import com.artemis.ComponentMapper;
 import com.artemis.systems.IteratingSystem;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.Vector2;
 
 import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.component.MainPlayer;
@@ -43,16 +44,19 @@ public class CameraUpdateSystem extends IteratingSystem {
         // Drawing the terrain appears to need a different pixels-to-meters ratio. With repeating textures, it will
         // use the texture pixels as unit. So we need to convert those to meters. I want the ground texture to be
         // about 1m wide, so ratio is 1m = <texture width> / 2
-        float terrainPPM = ResourceManager.instance.textureTerrainMud.getWidth() / 2;
+        // Without textures (e.g. when running headless) nothing is drawn with this camera, so any ratio will do.
+        Texture textureTerrainMud = ResourceManager.instance.textureTerrainMud;
+        float terrainPPM = textureTerrainMud != null ? textureTerrainMud.getWidth() / 2 : 1;
         terrainCam = setupCamera(terrainPPM);
     }
 
     @Override
     protected void process(int entityId) {
-        Body playerBody = mappers.physicsComponents.get(entityId).body;
-        cam.center(playerBody, world.getDelta());
+        // Track the interpolated position, so the camera moves as smoothly as the sprites it follows.
+        Vector2 playerCenter = mappers.physicsComponents.get(entityId).worldCenter;
+        cam.center(playerCenter, world.getDelta());
         cam.update();
-        terrainCam.center(playerBody, world.getDelta());
+        terrainCam.center(playerCenter, world.getDelta());
         terrainCam.update();
     }
 
@@ -69,6 +73,14 @@ public class CameraUpdateSystem extends IteratingSystem {
         return terrainCam;
     }
 
+    /**
+     * Moves the cameras back to the start of the world, for a new game.
+     */
+    public void reset() {
+        resetCamera(cam);
+        resetCamera(terrainCam);
+    }
+
     public void resize(int width, int height) {
         cam.resize(viewportWidth, viewportWidth * height / width);
         cam.update();
@@ -79,6 +91,11 @@ public class CameraUpdateSystem extends IteratingSystem {
     private TrackingCamera setupCamera(final float unitsPerMeter) {
         float w = Gdx.graphics.getWidth();
         float h = Gdx.graphics.getHeight();
+        if (w <= 0 || h <= 0) {
+            // No display (yet); assume a 16:9 screen until resize() is called.
+            w = 16;
+            h = 9;
+        }
 
         // Constructs a new TrackingCamera, using the given viewport width and height
         // Height is multiplied by aspect ratio. The Camera's units match the Physics' world
@@ -89,13 +106,18 @@ public class CameraUpdateSystem extends IteratingSystem {
         float lerp = 2f;
         TrackingCamera cam = new TrackingCamera(this.viewportWidth, this.viewportWidth * (h / w),
                 unitsPerMeter, lerp, true, false);
+        resetCamera(cam);
+        return cam;
+    }
+
+    private void resetCamera(TrackingCamera cam) {
+        cam.clearBoundaries();
         cam.setBoundaryLeft(0); //don't pan past the left side of the world
 
         // set camera in bottom-left corner. Position is in the center of the viewport, so adjust
         // accordingly.
         cam.position.set(cam.viewportWidth / 2f, cam.viewportHeight / 2f, 0);
         cam.update();
-        return cam;
     }
 
 
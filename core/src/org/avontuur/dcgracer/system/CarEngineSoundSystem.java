@@ -2,8 +2,8 @@ package org.avontuur.dcgracer.system;
 
 import com.artemis.Aspect;
 import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.physics.box2d.Body;
 
 import org.avontuur.dcgracer.component.CarEngine;
 import org.avontuur.dcgracer.component.Physics;
@@ -34,14 +34,17 @@ public class CarEngineSoundSystem extends IteratingSystem {
     @Override
     protected void process(int entityId) {
         CarEngine carEngineComponent = mappers.carEngineComponents.get(entityId);
-        Body body = mappers.physicsComponents.get(entityId).body;
+        Physics physics = mappers.physicsComponents.get(entityId);
 
-        if (carEngineComponent.carEngineSoundId == -1) {
-            carEngineComponent.carEngineSoundId = ResourceManager.instance.carEngineSound.loop();
+        // The sound may still be loading when the game starts; it starts playing once it's there.
+        Sound carEngineSound = ResourceManager.instance.carEngineSound;
+        if (carEngineComponent.carEngineSoundId == -1 && carEngineSound != null) {
+            carEngineComponent.carEngineSoundId = carEngineSound.loop();
+            carEngineComponent.soundPitch = -1;
         }
 
         float maxSpeed = 50; // hardcoded for now
-        float speed = Math.min(Math.abs(body.getLinearVelocity().x), maxSpeed);
+        float speed = Math.min(Math.abs(physics.linearVelocity.x), maxSpeed);
         // sound pitch for car engine based on its current speed
         float speedPitch = (speed / maxSpeed) * (MAX_PITCH - IDLE_PITCH) + IDLE_PITCH;
         float currentPitch = carEngineComponent.currentPitch;
@@ -63,7 +66,10 @@ public class CarEngineSoundSystem extends IteratingSystem {
         }
 
         carEngineComponent.currentPitch = currentPitch;
-        ResourceManager.instance.carEngineSound.setPitch(carEngineComponent.carEngineSoundId,
-                carEngineComponent.currentPitch);
+        // Idling, or at a constant speed, the pitch stays the same.
+        if (carEngineSound != null && carEngineComponent.soundPitch != currentPitch) {
+            carEngineSound.setPitch(carEngineComponent.carEngineSoundId, currentPitch);
+            carEngineComponent.soundPitch = currentPitch;
+        }
     }
 }
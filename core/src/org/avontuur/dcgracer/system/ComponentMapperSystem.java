@@ -9,8 +9,9 @@ import org.avontuur.dcgracer.component.MainPlayer;
 import org.avontuur.dcgracer.component.Motion;
 import org.avontuur.dcgracer.component.Physics;
 import org.avontuur.dcgracer.component.PlayerInput;
-import org.avontuur.dcgracer.component.PolygonRegion;
 import org.avontuur.dcgracer.component.Sprite;
+import org.avontuur.dcgracer.component.Terrain;
+import org.avontuur.dcgracer.component.TerrainMesh;
 import org.avontuur.dcgracer.component.WheelJoint;
 
 /**
@@ -26,9 +27,10 @@ public class ComponentMapperSystem extends BaseSystem {
     public ComponentMapper<Motion> motionComponents;
     public ComponentMapper<PlayerInput> playerInputComponents;
     public ComponentMapper<Sprite> spriteComponents;
-    public ComponentMapper<PolygonRegion> polygonRegionComponents;
     public ComponentMapper<WheelJoint> wheelJointComponents;
     public ComponentMapper<CarEngine> carEngineComponents;
+    public ComponentMapper<Terrain> terrainComponents;
+    public ComponentMapper<TerrainMesh> terrainMeshComponents;
 
 
     public ComponentMapperSystem() {
@@ -22,4 +22,10 @@ public class DebugRenderingSystem extends BaseSystem {
         debugRenderer.render(box2dWorldSystem.getBox2DWorld(), cameraUpdateSystem.getCamera(CameraEnum.STANDARD).combined);
 
     }
+
+    @Override
+    protected void dispose() {
+        super.dispose();
+        debugRenderer.dispose();
+    }
 }
@@ -4,7 +4,6 @@ import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.systems.IteratingSystem;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.physics.box2d.Body;
 
 import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.component.MainPlayer;
@@ -22,19 +21,49 @@ import org.avontuur.dcgracer.manager.ScreenManager;
 public class GameOverSystem extends IteratingSystem {
     private ComponentMapperSystem mappers;
 
+    private final GameOverListener listener;
+
+    /**
+     * Gets notified when the main player died.
+     */
+    public interface GameOverListener {
+        void gameOver();
+    }
+
+    /**
+     * Stops the sounds of the game, and shows the game over screen.
+     */
+    public static final GameOverListener SHOW_GAME_OVER_SCREEN = new GameOverListener() {
+        @Override
+        public void gameOver() {
+            ResourceManager.instance.stopSounds();
+            ScreenManager.getInstance().showScreen(ScreenEnum.GAMEOVER);
+        }
+    };
+
+    /**
+     * Creates a system that shows the game over screen when the main player dies.
+     */
     public GameOverSystem() {
+        this(SHOW_GAME_OVER_SCREEN);
+    }
+
+    public GameOverSystem(GameOverListener listener) {
         super(Aspect.all(MainPlayer.class, Physics.class));
+
+        this.listener = listener;
     }
 
     @Override
     protected void process(int entityId) {
-        Body body = mappers.physicsComponents.get(entityId).body;
+        // Body state as read back by Box2dWorldSystem
+        Physics physics = mappers.physicsComponents.get(entityId);
         boolean died = false;
-        float angleDegrees = body.getAngle() * MathUtils.radiansToDegrees % 360;
+        float angleDegrees = physics.angle * MathUtils.radiansToDegrees % 360;
 
-        if (body.getPosition().y < -10) {
+        if (physics.position.y < -10) {
             died = true;
-        } else if (Math.abs(angleDegrees) > 150 && Math.abs(body.getLinearVelocity().x) < 0.001) {
+        } else if (Math.abs(angleDegrees) > 150 && Math.abs(physics.linearVelocity.x) < 0.001) {
             // At a large angle without speed. Could technically still recover (sliding down a hill), but
             // for now it's good. When turning this into an actual game, it runs out of fuel and only dies then.
             died = true;
@@ -42,8 +71,7 @@ public class GameOverSystem extends IteratingSystem {
         }
 
         if (died) {
-            ResourceManager.instance.stopSounds();
-            ScreenManager.getInstance().showScreen(ScreenEnum.GAMEOVER);
+            listener.gameOver();
         }
     }
 }
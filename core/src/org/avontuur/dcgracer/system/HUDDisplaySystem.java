@@ -1,24 +1,41 @@
 package org.avontuur.dcgracer.system;
 
 import com.artemis.BaseSystem;
+import com.artemis.SystemInvocationStrategy;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.InputEvent;
+import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.StringBuilder;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 
+import org.avontuur.dcgracer.utils.RollingTimings;
 import org.avontuur.dcgracer.utils.TrackingCamera;
 
 /**
  * Display the game's HUD. Uses libgdx' scene2d.
  *
+ * When the world is processed with a {@link ProfilingInvocationStrategy}, the HUD can also show how long each system
+ * takes per frame. The overlay is toggled with the P key, or by tapping the offset in the top-left corner.
+ *
  * Created by Bram Avontuur on 2016-12-04.
  */
 
 public class HUDDisplaySystem extends BaseSystem {
+    // Interval, in seconds, between updates of the profiler overlay; often enough to follow, slow enough to read.
+    private static final float PROFILER_UPDATE_INTERVAL = 0.5f;
+    // Percentile of the system times shown in the profiler overlay, next to the minimum and the average
+    private static final float PROFILER_PERCENTILE = 99;
+
     private CameraUpdateSystem cameraUpdateSystem;
 
     private Stage stage;
@@ -26,6 +43,15 @@ public class HUDDisplaySystem extends BaseSystem {
     private Skin skin;
     private Label offsetLabel;
 
+    // Profiler overlay; set up when it's first shown
+    private Table profilerTable;
+    // Labels for the statistics of each system and the whole frame, in that order: min, average and percentile
+    private final Array<Label> profilerLabels = new Array<Label>();
+    private boolean profilerVisible;
+    private float profilerUpdateTimer;
+    // Scratch space for the text of the labels
+    private final StringBuilder labelText = new StringBuilder();
+
     public HUDDisplaySystem() {
         // reference: https://github.com/libgdx/libgdx/blob/master/tests/gdx-tests/src/com/badlogic/gdx/tests/UISimpleTest.java#L43
         // reference: https://github.com/libgdx/libgdx/wiki/Scene2d
@@ -39,6 +65,13 @@ public class HUDDisplaySystem extends BaseSystem {
         labelStyle.font = skin.getFont("default");
         labelStyle.fontColor = Color.GREEN;
         skin.add("default", labelStyle);
+        BitmapFont smallFont = new BitmapFont();
+        smallFont.getData().setScale(2f);
+        skin.add("small", smallFont);
+        Label.LabelStyle smallLabelStyle = new Label.LabelStyle();
+        smallLabelStyle.font = skin.getFont("small");
+        smallLabelStyle.fontColor = Color.DARK_GRAY;
+        skin.add("small", smallLabelStyle);
 
         stage = new Stage(new ExtendViewport(1920, 1080));
         table = new Table();
@@ -51,12 +84,52 @@ public class HUDDisplaySystem extends BaseSystem {
         offsetLabel.setColor(Color.GREEN);
         offsetLabel.setAlignment(Align.top | Align.left); // text alignment IN label
         table.add(offsetLabel).pad(10).align(Align.top | Align.left); // alignment of label in table
+
+        offsetLabel.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                toggleProfiler();
+            }
+        });
+        stage.addListener(new InputListener() {
+            @Override
+            public boolean keyDown(InputEvent event, int keycode) {
+                if (keycode == Input.Keys.P) {
+                    toggleProfiler();
+                    return true;
+                }
+                return false;
+            }
+        });
     }
 
     public void resize(int width, int height) {
         stage.getViewport().update(width, height, true);
     }
 
+    /**
+     * @return Input processor for the HUD; it only handles input meant for the HUD, and passes on everything else.
+     */
+    public InputProcessor getInputProcessor() {
+        return stage;
+    }
+
+    /**
+     * Shows or hides the profiler overlay. Does nothing when the world isn't being profiled.
+     */
+    public void toggleProfiler() {
+        ProfilingInvocationStrategy profiler = getProfiler();
+        if (profiler == null) {
+            return;
+        }
+        if (profilerTable == null) {
+            createProfilerTable(profiler);
+        }
+        profilerVisible = !profilerVisible;
+        profilerTable.setVisible(profilerVisible);
+        profilerUpdateTimer = 0;
+    }
+
     public void dispose() {
         stage.dispose();
         skin.dispose();
@@ -65,6 +138,9 @@ public class HUDDisplaySystem extends BaseSystem {
     @Override
     protected void processSystem() {
         updateOffset();
+        if (profilerVisible) {
+            updateProfiler();
+        }
         stage.act(getWorld().getDelta());
         stage.draw();
     }
@@ -72,6 +148,78 @@ public class HUDDisplaySystem extends BaseSystem {
     private void updateOffset() {
         TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
         float offset = cam.position.x - cam.viewportWidth / 2;
-        offsetLabel.setText(String.format("%.2f", offset));
+        setTwoDecimals(offsetLabel, offset);
+    }
+
+    private ProfilingInvocationStrategy getProfiler() {
+        SystemInvocationStrategy invocationStrategy = getWorld().getInvocationStrategy();
+        if (invocationStrategy instanceof ProfilingInvocationStrategy) {
+            return (ProfilingInvocationStrategy)invocationStrategy;
+        }
+        return null;
+    }
+
+    // Creates a row for each system, and one for the frame as a whole, below the offset.
+    private void createProfilerTable(ProfilingInvocationStrategy profiler) {
+        profilerTable = new Table();
+        addProfilerRow("system", "min", "avg", "p" + (int)PROFILER_PERCENTILE, false);
+        for (int i = 0; i < profiler.getSystemCount(); i++) {
+            addProfilerRow(profiler.getSystemName(i), "", "", "", true);
+        }
+        addProfilerRow("total (ms)", "", "", "", true);
+
+        table.row();
+        table.add(profilerTable).pad(10).align(Align.top | Align.left);
+    }
+
+    private void addProfilerRow(String name, String min, String average, String percentile, boolean hasValues) {
+        profilerTable.add(new Label(name, skin, "small")).align(Align.left).padRight(30);
+        Label[] labels = {new Label(min, skin, "small"), new Label(average, skin, "small"),
+                new Label(percentile, skin, "small")};
+        for (Label label : labels) {
+            label.setAlignment(Align.right);
+            profilerTable.add(label).width(90).align(Align.right);
+            if (hasValues) {
+                profilerLabels.add(label);
+            }
+        }
+        profilerTable.row();
+    }
+
+    private void updateProfiler() {
+        profilerUpdateTimer -= getWorld().getDelta();
+        if (profilerUpdateTimer > 0) {
+            return;
+        }
+        profilerUpdateTimer = PROFILER_UPDATE_INTERVAL;
+
+        ProfilingInvocationStrategy profiler = getProfiler();
+        int systemCount = profiler.getSystemCount();
+        for (int i = 0; i < systemCount; i++) {
+            setProfilerRow(i, profiler.getTimings(i));
+        }
+        setProfilerRow(systemCount, profiler.getFrameTimings());
+    }
+
+    private void setProfilerRow(int row, RollingTimings timings) {
+        setTwoDecimals(profilerLabels.get(row * 3), timings.getMin());
+        setTwoDecimals(profilerLabels.get(row * 3 + 1), timings.getAverage());
+        setTwoDecimals(profilerLabels.get(row * 3 + 2), timings.getPercentile(PROFILER_PERCENTILE));
+    }
+
+    // Shows a number with two decimals. String.format is not available on all platforms, and creates garbage every
+    // frame.
+    private void setTwoDecimals(Label label, float value) {
+        int hundredths = Math.abs(Math.round(value * 100));
+        labelText.setLength(0);
+        if (value < 0 && hundredths > 0) {
+            labelText.append('-');
+        }
+        labelText.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            labelText.append('0');
+        }
+        labelText.append(hundredths % 100);
+        label.setText(labelText);
     }
 }
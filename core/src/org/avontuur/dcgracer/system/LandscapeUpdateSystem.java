@@ -1,24 +1,27 @@
 package org.avontuur.dcgracer.system;
 
 import com.artemis.BaseSystem;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.PolygonRegion;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.ChainShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.utils.ShortArray;
+import com.badlogic.gdx.utils.Logger;
 
 import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.component.Physics;
-import org.avontuur.dcgracer.manager.ResourceManager;
-import org.avontuur.dcgracer.utils.TerrainGenerator;
+import org.avontuur.dcgracer.component.Terrain;
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.IntDeque;
+import org.avontuur.dcgracer.utils.ProceduralTerrainSource;
+import org.avontuur.dcgracer.utils.SizedPool;
+import org.avontuur.dcgracer.utils.TerrainHeightIndex;
+import org.avontuur.dcgracer.utils.TerrainSegmenter;
+import org.avontuur.dcgracer.utils.TerrainSource;
 import org.avontuur.dcgracer.utils.TrackingCamera;
 
-import java.util.LinkedList;
-
 /**
  * The terrain is constructed of vertical segments that are created as soon as they become visible. This system
  * tracks which segments are needed, and will add & remove segments.
@@ -31,48 +34,70 @@ public class LandscapeUpdateSystem extends BaseSystem {
     private CameraUpdateSystem cameraUpdateSystem;
     private Box2dWorldSystem box2dWorldSystem;
 
-    // Number of indices in array terrainDataPoints used for each datapoint.
+    // Number of indices in segment vertex arrays used for each datapoint.
     private static final short INDICES_PER_DATAPOINT = 2;
-    // terrain data points - a list of coordinates expressed as sequential x and y coordinates,
-    // e.g. [x0, y0, x1, y1, ..]
-    private float[] terrainDataPoints;
-    // entities currently displayed.
-    private LinkedList<Integer> entitiesOnScreen;
-    private TextureRegion terrainRegion;
-    // number of pixels per world-unit (meters)
-    private int terrainPPM;
+    // Level played when no terrain source is given
+    private static final String DEFAULT_LEVEL_FILE = "levels/level1.level";
+    // Maximum number of segments removed in a single frame, to spread the cost of removal over multiple frames.
+    private static final int MAX_SEGMENTS_REMOVED_PER_FRAME = 1;
+    // Cuts the terrain of the level into segments
+    private TerrainSegmenter terrainSegmenter;
+    // entities currently displayed, ordered from left to right. Segments are added on the right and removed on the
+    // left, and don't overlap, so the list is ordered by x coordinate as well.
+    private final IntDeque entitiesOnScreen = new IntDeque();
+    // Heights of the terrain of the segments in the world
+    private final TerrainHeightIndex heightIndex = new TerrainHeightIndex();
     // width of viewport, in world units (meters)
     private float viewPortWidth;
-    // start index, in terrainDataPoints, for next terrain entity to be created
-    private int nextTerrainDataPointsIndex = 0;
     // number of data points to use for individual sliced terrain segments
-    private int terrainDataPointsPerSegment;
+    private final int terrainDataPointsPerSegment;
     private boolean rightBoundarySet = false;
+    // Segments that have scrolled out of view by more than this distance (world units) on the left get removed.
+    private float removalMargin;
+    // Vertex arrays of removed segments, recycled for new segments. No more arrays of one size are needed at once
+    // than there are segments in the world, so the pool keeps at most that many, as seen so far; the first segments
+    // of a level prepared ahead of time come in new arrays, and would otherwise add to the pool on every restart.
+    private final SizedPool<float[]> segmentVerticesPool = new SizedPool<float[]>() {
+        @Override
+        protected float[] newObject(int size) {
+            return new float[size];
+        }
+    };
+    // Definitions for the physics bodies of the segments, reused for every segment
+    private final BodyDef terrainBodyDef = new BodyDef();
+    private final FixtureDef terrainFixtureDef = new FixtureDef();
+    // Builds the mesh vertex data of segments cut ahead of time, if the terrain is drawn
+    private TerrainSegmenter.MeshBuilder meshBuilder;
+    // Largest number of segments in the world at once so far
+    private int peakLiveSegmentCount;
 
     public LandscapeUpdateSystem(final float viewportWidth) {
-        this.viewPortWidth = viewportWidth;
+        this(viewportWidth, createDefaultTerrainSource());
+    }
 
-        // Generate the terrain data points - this will create the vertices for a closed simple polygon
-        // representing the ground terrain.
-        this.terrainDataPoints = getTerrainData();
+    /**
+     * @param viewportWidth Width of the viewport, in world units
+     * @param terrainSource Supplies the terrain data for the level
+     */
+    public LandscapeUpdateSystem(final float viewportWidth, final TerrainSource terrainSource) {
+        this.viewPortWidth = viewportWidth;
         // Each segment should take up about 1/4th of the screen
         // this.terrainDataPointsPerSegment = (int)(this.viewPortWidth / 16f / scaleX);
         // Just put a cap on the maximum datapoints per segment; higher means bigger physics objects and less total
         // segments
         this.terrainDataPointsPerSegment = 100;
+        // Terrain data is only held for one chunk at a time; chunks are loaded as segments are needed. The
+        // segments are closed simple polygons representing the ground terrain.
+        this.terrainSegmenter = new TerrainSegmenter(terrainSource, terrainDataPointsPerSegment);
         // TODO: Looks like the segment overlaps are creating undesired physics effects, such as the ball suddenly
         //       bouncing. May want to switch the physics surface to use contiguous EdgeShapes which are swapped out?
-        this.entitiesOnScreen = new LinkedList<Integer>();
-
-        Texture textureTerrainMud = ResourceManager.instance.textureTerrainMud;
-        textureTerrainMud.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
-        textureTerrainMud.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
-        this.terrainRegion = new TextureRegion(textureTerrainMud);
+        // Keep one screen worth of terrain to the left, so there's still ground when the player backs up a bit.
+        this.removalMargin = viewportWidth;
 
-        // This appears to need a different pixels-to-meters ratio. When repeating textures, it will use the
-        // texture pixels as unit. So we need to convert those to meters. I want the ground texture to be about 1m
-        // wide, so ratio is 1m = <texture width> / 2
-        this.terrainPPM = textureTerrainMud.getWidth() / 2;
+        terrainBodyDef.type = BodyDef.BodyType.StaticBody;
+        terrainBodyDef.position.set(0, 0);
+        terrainFixtureDef.density = 1f;
+        terrainFixtureDef.friction = 0.8f;
     }
 
     @Override
@@ -94,7 +119,7 @@ public class LandscapeUpdateSystem extends BaseSystem {
             // Prevent the cameras from going beyond the end of the world.
             DCGRacer.log.debug("endOfTerrain detected - setting camera bound");
             this.rightBoundarySet = true;
-            float terrainWidth = this.terrainDataPoints[this.terrainDataPoints.length - INDICES_PER_DATAPOINT];
+            float terrainWidth = this.terrainSegmenter.getNextSegmentStart();
             TrackingCamera terrainCam = cameraUpdateSystem.getCamera(CameraEnum.TERRAIN);
             terrainCam.setBoundaryRight(terrainWidth);
             TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
@@ -102,58 +127,80 @@ public class LandscapeUpdateSystem extends BaseSystem {
         }
     }
 
-    private float[] getTerrainData() {
-        // When this actually works, levels will be pre-generated instead of procedurally generated at game start.
-        // For now, use some hardcoded values.
-        float[] result;
+    /**
+     * Starts over with the terrain of a new level. The segments of the old level are forgotten, but not deleted:
+     * this is meant for starting a new game, when all entities and physics bodies are cleared anyway.
+     *
+     * @param terrainSegmenter Cuts the terrain of the new level into segments, see {@link #prepareLevel}
+     */
+    public void reset(final TerrainSegmenter terrainSegmenter) {
+        for (int i = 0; i < this.entitiesOnScreen.size(); i++) {
+            float[] vertices = mappers.terrainComponents.get(this.entitiesOnScreen.get(i)).vertices;
+            segmentVerticesPool.free(vertices.length, vertices);
+        }
+        this.entitiesOnScreen.clear();
+        this.heightIndex.clear();
+        this.rightBoundarySet = false;
+        this.terrainSegmenter = terrainSegmenter;
+    }
+
+    /**
+     * Gets a level ready to be played: loads its first chunk, and cuts the segments that are visible at the start
+     * of the game, including their mesh vertex data. Does not touch the world, so this can be done on another
+     * thread, ahead of time.
+     *
+     * @param terrainSource Supplies the terrain data for the level
+     * @return Segmenter to pass to {@link #reset(TerrainSegmenter)}
+     */
+    public TerrainSegmenter prepareLevel(final TerrainSource terrainSource) {
+        TerrainSegmenter terrainSegmenter = new TerrainSegmenter(terrainSource, this.terrainDataPointsPerSegment);
+        // The camera starts at the left edge of the level; see processSystem for the margin.
+        terrainSegmenter.prepare(this.viewPortWidth * 1.1f, this.meshBuilder);
+        return terrainSegmenter;
+    }
+
+    /**
+     * @param meshBuilder Builds the mesh vertex data of the segments of levels prepared ahead of time; set by the
+     *                    system that draws the terrain.
+     */
+    public void setMeshBuilder(final TerrainSegmenter.MeshBuilder meshBuilder) {
+        this.meshBuilder = meshBuilder;
+    }
+
+    /**
+     * @return Terrain for the level played when no terrain source is given
+     */
+    public static TerrainSource createDefaultTerrainSource() {
+        // Use the pre-generated level, if there is one; see LevelBaker in the desktop module.
+        FileHandle levelFile = Gdx.files.internal(DEFAULT_LEVEL_FILE);
+        if (levelFile.exists()) {
+            return BakedTerrainSource.load(levelFile);
+        }
+
+        // Otherwise, generate the terrain at game start, using some hardcoded values. Parameters: chunk iterations,
+        // range, scaleX, scaleY, roughness and number of chunks (-1 for endless terrain).
+        long seed = MathUtils.random.nextLong();
 
         // very bumpy terrain - does not perform well!
-        //result = generateTerrainDataProcedurally(11, 18f, 0.02f, 0.25f, 0.5f, 80);
+        //return new ProceduralTerrainSource(11, 18f, 0.02f, 0.25f, 0.5f, 80, seed);
         // way smoother but very straight edges.
-        //result = generateTerrainDataProcedurally(11, 18f, 0.2f, 0.25f, 0.5f, 8);
+        //return new ProceduralTerrainSource(11, 18f, 0.2f, 0.25f, 0.5f, 8, seed);
         // bumpy without too many datapoints
-        // result = generateTerrainDataProcedurally(8, 18f, 0.2f, 0.25f, 0.5f, 80);
-        // bumpy with long straight edges. This stitching together is still stupid; between segments, the
-        // transition is often not very smooth
-        //result = generateTerrainDataProcedurally(5, 18f, 2f, 0.25f, 0.5f, 800);
-        // Just 1 segment, with roughness set to a higher value for that extra bumpiness.
-        //result = generateTerrainDataProcedurally(11, 18f, 2f, 0.25f, 0.91f, 1);
-
-        result = generateTerrainDataProcedurally(11, 18f, 2f, 0.25f, 0.78f, 1);
+        //return new ProceduralTerrainSource(8, 18f, 0.2f, 0.25f, 0.5f, 80, seed);
+        // bumpy with long straight edges.
+        //return new ProceduralTerrainSource(5, 18f, 2f, 0.25f, 0.5f, 800, seed);
+        // Endless terrain
+        //return new ProceduralTerrainSource(8, 18f, 2f, 0.25f, 0.78f, -1, seed);
         // testing; giant flat surfaces
-        //result = generateTerrainDataProcedurally(11, 1f, 20f, 0.25f, 0.7f, 1);
-        return result;
-    }
-
-    private float[] generateTerrainDataProcedurally(final int numIterations, final float range, final float scaleX,
-                                                    final float scaleY, final float roughness,
-                                                    final int numTerrainSets) {
-        float xOffset = 0; //X Coordinate to start with for a new terrain set
-        float yOffset = range / 2 * scaleY; //Y coordinate to start with for a new terrain set
-        int terrainDataPointsOffset = 0; // index in terrainDataPointsOffset to start appending to
-
-        DCGRacer.log.debug("Generating terrain with scaleX=" + scaleX);
-        // Instead of generating 1 terrain data set with a higher number of iterations, generate multiple sets
-        // with a lower iteration count. The reason for this is that more iterations will smooth out the terrain
-        // more. The areas overlap because they all start at the same Y-coordinate.
-        // TODO: fugly, don't want these weird bumps in between sets, but for now it will do
-        float[] allDataPoints = null;
-
-        for (int i =0; i < numTerrainSets; i++) {
-            float[] dataPoints = TerrainGenerator.generateTerrainData(numIterations, range, scaleX, scaleY, xOffset,
-                    yOffset, roughness);
-
-            if (allDataPoints == null) {
-                allDataPoints = new float[dataPoints.length * numTerrainSets];
-            }
-            System.arraycopy(dataPoints, 0, allDataPoints, terrainDataPointsOffset, dataPoints.length);
-            terrainDataPointsOffset += dataPoints.length;
+        //return new ProceduralTerrainSource(11, 1f, 20f, 0.25f, 0.7f, 1, seed);
 
-            xOffset = dataPoints[dataPoints.length - 2] + scaleX;
-            yOffset = dataPoints[dataPoints.length - 1]; // little stupid, this makes little horizontal paths.
-        }
+        // Same level length as a single chunk of 11 iterations, but only 257 data points need to be in memory.
+        return new ProceduralTerrainSource(8, 18f, 2f, 0.25f, 0.78f, 8, seed);
+    }
 
-        return allDataPoints;
+    private float getCameraLeftBoundary() {
+        TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
+        return cam.position.x - cam.viewportWidth / 2;
     }
 
     private float getCameraRightBoundary() {
@@ -163,122 +210,98 @@ public class LandscapeUpdateSystem extends BaseSystem {
 
     private float getTerrainRightBoundary() {
         // start of the next to be added terrain segment == end of last added terrain segment
-        return this.terrainDataPoints[this.nextTerrainDataPointsIndex];
+        return this.terrainSegmenter.getNextSegmentStart();
     }
+
     private boolean endOfTerrain() {
-        // If the index for the next created terrain segment is the last element in the data points array,
-        // then nothing else needs to be added.
-        return this.nextTerrainDataPointsIndex == this.terrainDataPoints.length - INDICES_PER_DATAPOINT;
+        return this.terrainSegmenter.endOfTerrain();
     }
 
     private void addTerrainRight() {
-        int terrainIndexFrom = this.nextTerrainDataPointsIndex;
-        DCGRacer.log.debug("addTerrainRight!!([" + terrainIndexFrom + "]->("
-                + this.terrainDataPoints[terrainIndexFrom] + ", "
-                + this.terrainDataPoints[terrainIndexFrom + 1] + "))");
-
-        // terrainIndexTo is exclusive; the index itself will not be part of the new terrain element
-        // Note that each coordinate in terrainDataPoints uses 2 indices
-        int terrainIndexTo = terrainIndexFrom + this.terrainDataPointsPerSegment * INDICES_PER_DATAPOINT;
-
-        if (terrainIndexTo > this.terrainDataPoints.length) {
-            terrainIndexTo = this.terrainDataPoints.length;
+        // Create entity. The visual representation of the terrain is left to the renderer, if any; segments cut
+        // ahead of time come with their mesh vertex data.
+        int e = getWorld().create();
+        Terrain terrain = mappers.terrainComponents.create(e);
+        this.terrainSegmenter.nextSegment(segmentVerticesPool, terrain);
+        float[] segmentTerrainDataPoints = terrain.vertices;
+        if (DCGRacer.log.getLevel() >= Logger.DEBUG) {
+            // Only build the message when it's logged; this runs while driving, and should not create garbage.
+            DCGRacer.log.debug("addTerrainRight!!(" + segmentTerrainDataPoints[0] + ", "
+                    + segmentTerrainDataPoints[1] + ")");
         }
 
-        // starting index of the next segments (inclusive!) equals the data point of its preceding segment.
-        // Again, two indices per data point
-        this.nextTerrainDataPointsIndex = terrainIndexTo - INDICES_PER_DATAPOINT;
-
-        // slice the terrainDataPoints array to the section required for the new segment; reserve extra space for
-        // 3 coordinates to close the polygon.
-        float[] segmentTerrainDataPoints = new float[terrainIndexTo - terrainIndexFrom + 3 * INDICES_PER_DATAPOINT];
-        System.arraycopy(this.terrainDataPoints, terrainIndexFrom, segmentTerrainDataPoints, 0,
-                terrainIndexTo - terrainIndexFrom);
-        closePolygon(segmentTerrainDataPoints);
-
-        // Create entity
-        int e = getWorld().create();
         Physics physics = mappers.physicsComponents.create(e);
         physics.body = createTerrainBody(segmentTerrainDataPoints);
-        org.avontuur.dcgracer.component.PolygonRegion polygonRegionComponent =
-                mappers.polygonRegionComponents.create(e);
-        polygonRegionComponent.polygonRegion = createTerrainPolygonRegion(segmentTerrainDataPoints);
-        // Add to internal linked list of entities so that they can be easily removed later.
-        this.entitiesOnScreen.push(e);
+        // Add to internal list of entities so that they can be easily removed later.
+        this.entitiesOnScreen.addLast(e);
+        if (this.entitiesOnScreen.size() > this.peakLiveSegmentCount) {
+            this.peakLiveSegmentCount = this.entitiesOnScreen.size();
+            this.segmentVerticesPool.setMax(this.peakLiveSegmentCount);
+        }
+        this.heightIndex.addSegment(segmentTerrainDataPoints);
     }
 
-    private void closePolygon(float[] segments) {
-        //this assumes the last 3 data points in the segments array are to be populated with the polygon-closing
-        //coordinates, and that there are at least 2 data points in segments.
-        int closePolygonStartIndex = segments.length - INDICES_PER_DATAPOINT * 3;
-
-        // add the 3 vertices to make it a closed polygon
-        // Bottom-right X&Y; get X from previous coordinate, Y=0
-        segments[closePolygonStartIndex] = segments[closePolygonStartIndex - 2];
-        segments[closePolygonStartIndex + 1 ] = 0;
-        // Bottom-left X&Y: X=same as X of first coordinate, Y=0 again
-        segments[closePolygonStartIndex + 2] = segments[0];
-        segments[closePolygonStartIndex + 3] = 0;
-        // Finally, close the polygon by copying the first coordinate.
-        segments[closePolygonStartIndex + 4] = segments[0];
-        segments[closePolygonStartIndex + 5] = segments[1];
-
-    }
     private void removeTerrainLeft() {
-        //TODO: implement me!
+        float removalBoundary = getCameraLeftBoundary() - this.removalMargin;
+        int removed = 0;
+
+        while (removed < MAX_SEGMENTS_REMOVED_PER_FRAME && this.entitiesOnScreen.size() > 1) {
+            int e = this.entitiesOnScreen.first();
+            float[] vertices = mappers.terrainComponents.get(e).vertices;
+            float segmentRightBoundary = getSegmentRightBoundary(vertices);
+            if (segmentRightBoundary >= removalBoundary) {
+                break;
+            }
+
+            this.entitiesOnScreen.removeFirst();
+            this.heightIndex.removeBefore(segmentRightBoundary);
+            // Box2dWorldSystem destroys the body, and renderers release their resources for the segment, when the
+            // entity is removed. The vertices are only needed again once a new segment is added, which is after the
+            // entity is gone.
+            getWorld().delete(e);
+            segmentVerticesPool.free(vertices.length, vertices);
+            removed++;
+
+            // Prevent the cameras from showing where the terrain used to be
+            cameraUpdateSystem.getCamera(CameraEnum.TERRAIN).setBoundaryLeft(segmentRightBoundary);
+            cameraUpdateSystem.getCamera(CameraEnum.STANDARD).setBoundaryLeft(segmentRightBoundary);
+        }
     }
 
-    private PolygonRegion createTerrainPolygonRegion(float[] segmentTerrainDataPoints) {
-        // terrainVertices is in pixel units.
-        final float[] terrainVertices = transformVertices(segmentTerrainDataPoints, terrainPPM, terrainPPM);
-        EarClippingTriangulator triangulator = new EarClippingTriangulator();
-        ShortArray triangulatedShortArray = triangulator.computeTriangles(terrainVertices);
-        short[] triangles = new short[triangulatedShortArray.size];
+    private float getSegmentRightBoundary(float[] segmentVertices) {
+        // The polygon is closed with the bottom-right, bottom-left and first coordinates; the bottom-right
+        // coordinate has the x coordinate of the right-most data point.
+        return segmentVertices[segmentVertices.length - 3 * INDICES_PER_DATAPOINT];
+    }
 
-        for (int i = 0; i < triangulatedShortArray.size; i++)
-            triangles[i] = triangulatedShortArray.get(i);
+    /**
+     * @return Heights of the terrain in the world, from the left edge of the left-most segment to the right edge of
+     *         the right-most one. Updated as segments are added and removed.
+     */
+    public TerrainHeightIndex getHeightIndex() {
+        return this.heightIndex;
+    }
 
-        PolygonRegion terrainPolygonRegion = new PolygonRegion(terrainRegion, terrainVertices, triangles);
-        return terrainPolygonRegion;
+    /**
+     * @return Number of terrain segments currently in the world
+     */
+    public int getLiveSegmentCount() {
+        return this.entitiesOnScreen.size();
     }
 
     // create a Box2D Physics Body from a list of coordinates representing a polygon
     private Body createTerrainBody(float[] segmentTerrainDataPoints) {
-        // Create the box2d representation of the terrain and the triangulated texture.
+        // Create the box2d representation of the terrain. A chain shape can't be filled twice, so unlike the
+        // definitions it's created for each segment; the Body and Fixture objects are pooled by the Box2D world.
         ChainShape terrainShape = new ChainShape();
         terrainShape.createChain(segmentTerrainDataPoints);
 
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.StaticBody;
-        bodyDef.position.set(0, 0);
-
-        Body bodyTerrain = box2dWorldSystem.getBox2DWorld().createBody(bodyDef);
-
-        FixtureDef fixtureDef = new FixtureDef();
-        fixtureDef.shape = terrainShape;
-        fixtureDef.density = 1f;
-        fixtureDef.friction = 0.8f;
+        Body bodyTerrain = box2dWorldSystem.getBox2DWorld().createBody(terrainBodyDef);
 
-        bodyTerrain.createFixture(fixtureDef);
+        terrainFixtureDef.shape = terrainShape;
+        bodyTerrain.createFixture(terrainFixtureDef);
+        terrainFixtureDef.shape = null;
         terrainShape.dispose();
         return bodyTerrain;
     }
-
-
-    // map world unit vertices to pixel-based vertices for triangulation
-    private float[] transformVertices(float[] vertices, float scaleX, float scaleY) {
-        // This assumes each vertex' coordinate occupies 2 sequential indexes in vertices
-        float[] result = new float[vertices.length];
-
-        for (int i = 0; i < vertices.length; i++) {
-            if (i % 2 == 0) {
-                result[i] = vertices[i] * scaleX;
-            } else {
-                result[i] = vertices[i] * scaleY;
-            }
-        }
-
-        return result;
-    }
-
 }
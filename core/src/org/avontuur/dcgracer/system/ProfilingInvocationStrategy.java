@@ -0,0 +1,81 @@
+package org.avontuur.dcgracer.system;
+
+import com.artemis.SystemInvocationStrategy;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+
+import org.avontuur.dcgracer.utils.RollingTimings;
+
+/**
+ * Processes the systems of a world in order, like artemis' default strategy, and times each of them. The times of
+ * the most recent frames are kept per system, see {@link #getTimings(int)}; HUDDisplaySystem can show them.
+ *
+ * Timing takes two calls to the clock per system, so it's cheap enough to leave on. Entity changes that are flushed
+ * before a system runs are counted towards that system.
+ */
+public class ProfilingInvocationStrategy extends SystemInvocationStrategy {
+    // Number of frames the statistics are calculated over; a few seconds at 60 frames per second
+    public static final int WINDOW_SIZE = 300;
+
+    // Timings of each system, in the order the systems are processed
+    private final Array<RollingTimings> systemTimings = new Array<RollingTimings>();
+    private final Array<String> systemNames = new Array<String>();
+    // Timings of all systems together
+    private final RollingTimings frameTimings = new RollingTimings(WINDOW_SIZE);
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        for (int i = 0; i < systems.size(); i++) {
+            systemTimings.add(new RollingTimings(WINDOW_SIZE));
+            systemNames.add(ClassReflection.getSimpleName(systems.get(i).getClass()));
+        }
+    }
+
+    @Override
+    protected void process() {
+        long frameStart = TimeUtils.nanoTime();
+        for (int i = 0, s = systems.size(); s > i; i++) {
+            if (disabled.get(i)) {
+                continue;
+            }
+
+            long start = TimeUtils.nanoTime();
+            updateEntityStates();
+            systems.get(i).process();
+            systemTimings.get(i).add((TimeUtils.nanoTime() - start) / 1000000f);
+        }
+        updateEntityStates();
+        frameTimings.add((TimeUtils.nanoTime() - frameStart) / 1000000f);
+    }
+
+    /**
+     * @return Number of systems that are timed
+     */
+    public int getSystemCount() {
+        return systemTimings.size;
+    }
+
+    /**
+     * @param index Index of a system, in the order the systems are processed
+     */
+    public String getSystemName(int index) {
+        return systemNames.get(index);
+    }
+
+    /**
+     * @param index Index of a system, in the order the systems are processed
+     * @return Time taken by the system in the most recent frames
+     */
+    public RollingTimings getTimings(int index) {
+        return systemTimings.get(index);
+    }
+
+    /**
+     * @return Time taken by all systems together in the most recent frames
+     */
+    public RollingTimings getFrameTimings() {
+        return frameTimings;
+    }
+}
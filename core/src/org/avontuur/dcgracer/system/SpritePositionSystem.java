@@ -1,21 +1,21 @@
 package org.avontuur.dcgracer.system;
 
 import com.artemis.Aspect;
-import com.artemis.ComponentMapper;
 import com.artemis.systems.IteratingSystem;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.CircleShape;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.Shape;
 
-import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.component.Physics;
 
 /**
  * Updates sprite position and rotation for entities that have a presence in the physics world
  *
+ * The offset between a body's position and its sprite's position depends on the body's shape, which never changes;
+ * it's worked out once, when the entity is added. Sprites of bodies that did not move (static or sleeping bodies)
+ * are left alone.
+ *
  * Created by Bram Avontuur on 2016-11-27.
  */
 
@@ -27,26 +27,50 @@ public class SpritePositionSystem extends IteratingSystem {
     }
 
     @Override
-    protected void process(int entityId) {
-        Sprite sprite = mappers.spriteComponents.get(entityId).sprite;
+    protected void inserted(int entityId) {
+        super.inserted(entityId);
+        org.avontuur.dcgracer.component.Sprite spriteComponent = mappers.spriteComponents.get(entityId);
+        Sprite sprite = spriteComponent.sprite;
         Body body = mappers.physicsComponents.get(entityId).body;
-
         if (sprite == null) {
             return;
         }
 
         Shape.Type shapeType = body.getFixtureList().get(0).getShape().getType();
         if (shapeType == Shape.Type.Polygon) {
-            sprite.setPosition(body.getPosition().x, body.getPosition().y);
+            spriteComponent.offsetX = 0;
+            spriteComponent.offsetY = 0;
         } else {
             // circle and box shapes have the body origin in the center; other shapes have the origin in the bottom
             // left. Not sure if boxes are actually not also of Polygon type, in which case I have to do this
             // differently.
-            sprite.setPosition(body.getPosition().x - sprite.getWidth() / 2,
-                    body.getPosition().y - sprite.getHeight() / 2);
+            spriteComponent.offsetX = -sprite.getWidth() / 2;
+            spriteComponent.offsetY = -sprite.getHeight() / 2;
         }
-        // TODO: Should probably use a unique component for rotatables.
+
+        // The body may never move; start out in the right place.
+        sprite.setPosition(body.getPosition().x + spriteComponent.offsetX,
+                body.getPosition().y + spriteComponent.offsetY);
         sprite.setRotation(body.getAngle() * MathUtils.radiansToDegrees);
+    }
 
+    @Override
+    protected void process(int entityId) {
+        Physics physics = mappers.physicsComponents.get(entityId);
+        if (!physics.moved) {
+            return;
+        }
+        org.avontuur.dcgracer.component.Sprite spriteComponent = mappers.spriteComponents.get(entityId);
+        Sprite sprite = spriteComponent.sprite;
+        if (sprite == null) {
+            return;
+        }
+
+        // Use the interpolated transform maintained by Box2dWorldSystem rather than the body's own transform,
+        // which only changes once per physics step.
+        sprite.setPosition(physics.position.x + spriteComponent.offsetX,
+                physics.position.y + spriteComponent.offsetY);
+        // TODO: Should probably use a unique component for rotatables.
+        sprite.setRotation(physics.angle * MathUtils.radiansToDegrees);
     }
 }
@@ -10,7 +10,7 @@ import org.avontuur.dcgracer.DCGRacer;
 import org.avontuur.dcgracer.utils.TrackingCamera;
 
 /**
- * Draws entities with Sprite components to the screen.
+ * Draws entities with Sprite components to the screen. Sprites outside of the camera's view are skipped.
  *
  * Created by Bram Avontuur on 2016-11-28.
  */
@@ -19,6 +19,10 @@ public class SpriteRenderingSystem extends IteratingSystem {
     private ComponentMapperSystem mappers;
     private SpriteBatch batch;
     private CameraUpdateSystem cameraUpdateSystem;
+    private TrackingCamera cam;
+    // number of sprites drawn and skipped in the last frame
+    private int drawnCount;
+    private int culledCount;
 
     public SpriteRenderingSystem() {
         super(Aspect.all(org.avontuur.dcgracer.component.Sprite.class));
@@ -29,20 +33,41 @@ public class SpriteRenderingSystem extends IteratingSystem {
         batch = new SpriteBatch();
     }
 
+    @Override
+    protected void inserted(int entityId) {
+        super.inserted(entityId);
+        org.avontuur.dcgracer.component.Sprite spriteComponent = mappers.spriteComponents.get(entityId);
+        Sprite sprite = spriteComponent.sprite;
+        // Sprites rotate around their origin.
+        float dx = Math.max(Math.abs(sprite.getOriginX()), Math.abs(sprite.getWidth() - sprite.getOriginX()));
+        float dy = Math.max(Math.abs(sprite.getOriginY()), Math.abs(sprite.getHeight() - sprite.getOriginY()));
+        float scale = Math.max(Math.abs(sprite.getScaleX()), Math.abs(sprite.getScaleY()));
+        spriteComponent.boundingRadius = (float)Math.sqrt(dx * dx + dy * dy) * scale;
+    }
+
     @Override
     protected void begin() {
         super.begin();
         // TODO: Move camera into this renderer? Or does that make it less generic..maybe have it have a
         //       setCamera()
-        TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
+        cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
         batch.setProjectionMatrix(cam.combined);
         batch.begin();
+        drawnCount = 0;
+        culledCount = 0;
     }
 
     @Override
     protected void process(int entityId) {
-        Sprite sprite = mappers.spriteComponents.get(entityId).sprite;
+        org.avontuur.dcgracer.component.Sprite spriteComponent = mappers.spriteComponents.get(entityId);
+        Sprite sprite = spriteComponent.sprite;
+        float radius = spriteComponent.boundingRadius;
+        if (!cam.isVisible(sprite.getX() + sprite.getOriginX(), sprite.getY() + sprite.getOriginY(), radius, radius)) {
+            culledCount++;
+            return;
+        }
         sprite.draw(batch);
+        drawnCount++;
         //DCGRacer.log.debug("Sprite " + sprite + " position = " + sprite.getX() + ", " + sprite.getY());
     }
 
@@ -51,4 +76,24 @@ public class SpriteRenderingSystem extends IteratingSystem {
         super.end();
         batch.end();
     }
+
+    @Override
+    protected void dispose() {
+        super.dispose();
+        batch.dispose();
+    }
+
+    /**
+     * @return Number of sprites drawn in the last frame
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * @return Number of sprites skipped in the last frame because they were out of view
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
 }
@@ -0,0 +1,265 @@
+package org.avontuur.dcgracer.system;
+
+import com.artemis.Aspect;
+import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+import org.avontuur.dcgracer.component.Terrain;
+import org.avontuur.dcgracer.component.TerrainMesh;
+import org.avontuur.dcgracer.manager.ResourceManager;
+import org.avontuur.dcgracer.utils.SizedPool;
+import org.avontuur.dcgracer.utils.TerrainSegmenter;
+import org.avontuur.dcgracer.utils.TerrainTessellator;
+import org.avontuur.dcgracer.utils.TrackingCamera;
+
+/**
+ * Draws terrain entities to the screen.
+ *
+ * Terrain never changes once it's created, so each segment is uploaded to the GPU just once, as a mesh in a static
+ * vertex buffer, when the segment is added to the world. Drawing the terrain then takes one draw call per segment,
+ * without sending any vertices. Segments outside of the camera's view are skipped. Meshes of removed segments are
+ * recycled for new segments of the same size.
+ *
+ * The vertex data of the first segments of a level that is prepared ahead of time is computed then, on the thread
+ * preparing it; only the upload is left for when the segments are added.
+ */
+public class TerrainRenderingSystem extends IteratingSystem implements TerrainSegmenter.MeshBuilder {
+    // Vertex layout, same as SpriteBatch's so its default shader can be used: x, y, color, u, v
+    private static final int VERTEX_SIZE = 2 + 1 + 2;
+    private static final float COLOR = Color.WHITE.toFloatBits();
+
+    private ComponentMapperSystem mappers;
+    private CameraUpdateSystem cameraUpdateSystem;
+    private LandscapeUpdateSystem landscapeUpdateSystem;
+    private TrackingCamera cam;
+    // number of segments drawn and skipped in the last frame
+    private int drawnCount;
+    private int culledCount;
+
+    private Texture terrainTexture;
+    // size of the terrain texture, in pixels, for building mesh vertices on other threads
+    private int textureWidth;
+    private int textureHeight;
+    private ShaderProgram shader;
+    // number of pixels per world-unit (meters)
+    private int terrainPPM;
+    // Meshes of removed segments, by number of surface points
+    private SizedPool<Mesh> meshPool;
+    // All meshes created, for disposal
+    private final Array<Mesh> meshes = new Array<Mesh>();
+    // Vertex data of the mesh being created, grown as needed
+    private float[] meshVertices = new float[0];
+
+    public TerrainRenderingSystem() {
+        super(Aspect.all(Terrain.class));
+    }
+
+    @Override
+    protected void initialize() {
+        shader = SpriteBatch.createDefaultShader();
+
+        terrainTexture = ResourceManager.instance.textureTerrainMud;
+        Texture.TextureFilter minFilter = terrainTexture.getTextureData().useMipMaps()
+                ? Texture.TextureFilter.MipMapLinearLinear : Texture.TextureFilter.Linear;
+        terrainTexture.setFilter(minFilter, Texture.TextureFilter.Linear);
+        terrainTexture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+
+        // This appears to need a different pixels-to-meters ratio. When repeating textures, it will use the
+        // texture pixels as unit. So we need to convert those to meters. I want the ground texture to be about 1m
+        // wide, so ratio is 1m = <texture width> / 2
+        this.terrainPPM = terrainTexture.getWidth() / 2;
+        this.textureWidth = terrainTexture.getWidth();
+        this.textureHeight = terrainTexture.getHeight();
+
+        this.meshPool = new SizedPool<Mesh>() {
+            @Override
+            protected Mesh newObject(int size) {
+                Mesh mesh = newTerrainMesh(size);
+                meshes.add(mesh);
+                return mesh;
+            }
+        };
+
+        landscapeUpdateSystem.setMeshBuilder(this);
+    }
+
+    @Override
+    public float[] buildMeshVertices(float[] segmentVertices) {
+        float[] vertices = new float[numMeshVertexElements(numSurfacePoints(segmentVertices.length))];
+        computeTerrainMeshVertices(segmentVertices, terrainPPM, textureWidth, textureHeight, vertices);
+        return vertices;
+    }
+
+    @Override
+    protected void inserted(int entityId) {
+        super.inserted(entityId);
+        Terrain terrain = mappers.terrainComponents.get(entityId);
+        int numSurfacePoints = numSurfacePoints(terrain.vertices.length);
+        int numMeshVertexElements = numMeshVertexElements(numSurfacePoints);
+        float[] vertexData = terrain.meshVertices;
+        if (vertexData != null) {
+            // Built when the segment was prepared; not needed after the upload.
+            terrain.meshVertices = null;
+        } else {
+            if (meshVertices.length < numMeshVertexElements) {
+                meshVertices = new float[numMeshVertexElements];
+            }
+            computeTerrainMeshVertices(terrain.vertices, terrainPPM, textureWidth, textureHeight, meshVertices);
+            vertexData = meshVertices;
+        }
+
+        // Uploads the vertices to the GPU
+        Mesh mesh = meshPool.obtain(numSurfacePoints);
+        mesh.setVertices(vertexData, 0, numMeshVertexElements);
+        TerrainMesh terrainMesh = mappers.terrainMeshComponents.create(entityId);
+        terrainMesh.mesh = mesh;
+        computeBounds(vertexData, numMeshVertexElements, terrainMesh.bounds);
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        Mesh mesh = mappers.terrainMeshComponents.get(entityId).mesh;
+        meshPool.free(mesh.getMaxVertices() / 2, mesh);
+        super.removed(entityId);
+    }
+
+    @Override
+    protected void begin() {
+        super.begin();
+        cam = cameraUpdateSystem.getCamera(CameraEnum.TERRAIN);
+        drawnCount = 0;
+        culledCount = 0;
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        terrainTexture.bind(0);
+        shader.begin();
+        shader.setUniformMatrix("u_projTrans", cam.combined);
+        shader.setUniformi("u_texture", 0);
+    }
+
+    @Override
+    protected void process(int entityId) {
+        TerrainMesh terrainMesh = mappers.terrainMeshComponents.get(entityId);
+        Rectangle bounds = terrainMesh.bounds;
+        if (!cam.isVisible(bounds.x + bounds.width / 2, bounds.y + bounds.height / 2, bounds.width / 2,
+                bounds.height / 2)) {
+            culledCount++;
+            return;
+        }
+        terrainMesh.mesh.render(shader, GL20.GL_TRIANGLES);
+        drawnCount++;
+    }
+
+    @Override
+    protected void end() {
+        super.end();
+        shader.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * @return Number of terrain segments drawn in the last frame
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * @return Number of terrain segments skipped in the last frame because they were out of view
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    @Override
+    protected void dispose() {
+        super.dispose();
+        for (Mesh mesh : meshes) {
+            mesh.dispose();
+        }
+        meshes.clear();
+        meshPool.clear();
+        shader.dispose();
+    }
+
+    /**
+     * Calculates the vertex data of the mesh for a terrain segment: position, color and texture coordinates of each
+     * vertex. Does not allocate any memory.
+     *
+     * @param segmentTerrainDataPoints Vertices of the closed polygon outlining the terrain segment, in world units
+     * @param terrainPPM Number of texture pixels per world unit
+     * @param textureWidth Width of the terrain texture, in pixels
+     * @param textureHeight Height of the terrain texture, in pixels
+     * @param meshVertices Array to write the vertex data to, of at least
+     *                     {@link #numMeshVertexElements(int)} elements
+     */
+    public static void computeTerrainMeshVertices(float[] segmentTerrainDataPoints, float terrainPPM,
+                                                  int textureWidth, int textureHeight, float[] meshVertices) {
+        int numSurfacePoints = numSurfacePoints(segmentTerrainDataPoints.length);
+        // Positions are in pixel units.
+        TerrainTessellator.computeVertices(segmentTerrainDataPoints, 0, numSurfacePoints, terrainPPM, terrainPPM,
+                meshVertices, VERTEX_SIZE);
+
+        // The texture repeats, so texture coordinates are simply the position in textures.
+        int numMeshVertexElements = numMeshVertexElements(numSurfacePoints);
+        for (int i = 0; i < numMeshVertexElements; i += VERTEX_SIZE) {
+            meshVertices[i + 2] = COLOR;
+            meshVertices[i + 3] = meshVertices[i] / textureWidth;
+            meshVertices[i + 4] = 1 - meshVertices[i + 1] / textureHeight;
+        }
+    }
+
+    /**
+     * @return Size of the vertex data of the mesh for a segment with the given number of surface points
+     */
+    public static int numMeshVertexElements(int numSurfacePoints) {
+        return TerrainTessellator.numVertexElements(numSurfacePoints) / 2 * VERTEX_SIZE;
+    }
+
+    /**
+     * @return Number of points on the terrain surface of a segment polygon; the last 3 vertices close the polygon.
+     */
+    public static int numSurfacePoints(int numSegmentVertexElements) {
+        return numSegmentVertexElements / 2 - 3;
+    }
+
+    // Calculates the bounding box of mesh vertex data.
+    private static void computeBounds(float[] meshVertices, int numMeshVertexElements, Rectangle bounds) {
+        float minX = meshVertices[0];
+        float maxX = minX;
+        float minY = meshVertices[1];
+        float maxY = minY;
+        for (int i = VERTEX_SIZE; i < numMeshVertexElements; i += VERTEX_SIZE) {
+            minX = Math.min(minX, meshVertices[i]);
+            maxX = Math.max(maxX, meshVertices[i]);
+            minY = Math.min(minY, meshVertices[i + 1]);
+            maxY = Math.max(maxY, meshVertices[i + 1]);
+        }
+        bounds.set(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    // Creates an empty mesh, with the triangles for a segment with the given number of surface points.
+    private static Mesh newTerrainMesh(int numSurfacePoints) {
+        short[] triangles = new short[TerrainTessellator.numTriangleIndices(numSurfacePoints)];
+        TerrainTessellator.computeTriangles(numSurfacePoints, triangles);
+
+        // Two vertices per surface point
+        Mesh mesh = new Mesh(true, numSurfacePoints * 2, triangles.length,
+                new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2,
+                        ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+        mesh.setIndices(triangles);
+        return mesh;
+    }
+}
@@ -9,6 +9,9 @@ import org.avontuur.dcgracer.component.WheelJoint;
 
 /**
  * Sets wheel motor speed based on a motion vector.
+ *
+ * The motor is only updated when its settings change: each change is a call into Box2D, and wakes up the wheel.
+ *
  * Created by Bram Avontuur on 2016-12-28.
  */
 
@@ -23,7 +26,18 @@ public class WheelSpeedSystem extends IteratingSystem {
     protected void process(int entityId) {
         Motion motionComponent = mappers.motionComponents.get(entityId);
         WheelJoint wheelJointComponent = mappers.wheelJointComponents.get(entityId);
-        wheelJointComponent.wheelJoint.enableMotor(true);
-        wheelJointComponent.wheelJoint.setMotorSpeed(motionComponent.force.x);
+        if (wheelJointComponent.wheelJoint == null) {
+            // Destroyed along with the body it was attached to
+            return;
+        }
+        if (!wheelJointComponent.motorEnabled) {
+            wheelJointComponent.wheelJoint.enableMotor(true);
+            wheelJointComponent.motorEnabled = true;
+        }
+        float motorSpeed = motionComponent.force.x;
+        if (wheelJointComponent.motorSpeed != motorSpeed) {
+            wheelJointComponent.wheelJoint.setMotorSpeed(motorSpeed);
+            wheelJointComponent.motorSpeed = motorSpeed;
+        }
     }
 }
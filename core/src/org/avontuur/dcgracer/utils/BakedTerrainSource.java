@@ -0,0 +1,107 @@
+package org.avontuur.dcgracer.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Terrain of a level that was generated ahead of time and stored in a file, so starting the level only takes
+ * reading the file instead of generating the terrain.
+ *
+ * File format, little endian:
+ *
+ *   int     magic number, {@link #MAGIC}
+ *   int     format version, {@link #VERSION}
+ *   int     number of data points per chunk
+ *   int     number of chunks
+ *   float[] data points of all chunks, chunk after chunk, alternating between x and y coordinates
+ *
+ * Chunks are copied straight out of the file contents when requested. How the contents are read depends on the
+ * platform, see {@link #setFileReader(FileReader)}; the JVM platforms memory-map the file where possible. Only
+ * the data points are stored: segments are fixed-size slices of the chunks, and their triangles only depend on the
+ * number of data points (see {@link TerrainTessellator}), so both are cheaper to compute than to read.
+ */
+public class BakedTerrainSource implements TerrainSource {
+    // "DCGL"
+    public static final int MAGIC = 0x4443474c;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 4 * 4;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static FileReader fileReader = new FileReader() {
+        @Override
+        public ByteBuffer read(FileHandle file) {
+            return ByteBuffer.wrap(file.readBytes());
+        }
+    };
+
+    private final int pointsPerChunk;
+    private final int numChunks;
+    private final FloatBuffer dataPoints;
+
+    /**
+     * @param buffer Contents of a level file, from its current position
+     */
+    public BakedTerrainSource(ByteBuffer buffer) {
+        buffer.order(BYTE_ORDER);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a level file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported level file version " + version);
+        }
+        pointsPerChunk = buffer.getInt();
+        numChunks = buffer.getInt();
+        if (pointsPerChunk < 2 || numChunks < 1
+                || buffer.remaining() < (long)numChunks * pointsPerChunk * 2 * 4) {
+            throw new GdxRuntimeException("Corrupt level file: " + numChunks + " chunks of " + pointsPerChunk
+                    + " points in " + buffer.remaining() + " bytes");
+        }
+        dataPoints = buffer.slice().order(BYTE_ORDER).asFloatBuffer();
+    }
+
+    /**
+     * Opens a level file, using the platform's {@link FileReader}.
+     */
+    public static BakedTerrainSource load(FileHandle file) {
+        return new BakedTerrainSource(fileReader.read(file));
+    }
+
+    /**
+     * Sets how level files are read. By default they are read into a byte array, which works on all platforms.
+     * Platforms that support java.nio channels should set a {@link NioFileReader} at startup.
+     */
+    public static void setFileReader(FileReader fileReader) {
+        BakedTerrainSource.fileReader = fileReader;
+    }
+
+    @Override
+    public int getPointsPerChunk() {
+        return pointsPerChunk;
+    }
+
+    @Override
+    public int getNumChunks() {
+        return numChunks;
+    }
+
+    @Override
+    public void getChunk(int chunkIndex, float[] dataPoints) {
+        if (chunkIndex < 0 || chunkIndex >= numChunks) {
+            throw new IndexOutOfBoundsException("Chunk " + chunkIndex + " of " + numChunks);
+        }
+        this.dataPoints.position(chunkIndex * pointsPerChunk * 2);
+        this.dataPoints.get(dataPoints, 0, pointsPerChunk * 2);
+    }
+
+    /**
+     * Reads the contents of a level file into a buffer.
+     */
+    public interface FileReader {
+        ByteBuffer read(FileHandle file);
+    }
+}
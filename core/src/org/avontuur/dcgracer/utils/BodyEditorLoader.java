@@ -6,6 +6,7 @@ import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
@@ -177,6 +178,64 @@ public class BodyEditorLoader {
 		}
 	}
 
+	/**
+	 * Creates the shapes defined in the editor, without attaching them to a
+	 * body. Box2D copies shapes into the fixtures it creates, so the same
+	 * shapes can be used to create the fixtures of any number of bodies.
+	 * The caller owns the shapes, and must dispose them.
+	 *
+	 * @param name The name of the fixture you want to load.
+	 * @param scale The desired scale of the body. The default width is 1.
+	 */
+	public Array<Shape> createShapes(String name, float scale) {
+		RigidBodyModel rbModel = model.rigidBodies.get(name);
+		if (rbModel == null) throw new RuntimeException("Name '" + name + "' was not found.");
+
+		Vector2 origin = vec.set(rbModel.origin).scl(scale);
+		Array<Shape> shapes = new Array<Shape>();
+
+		for (int i=0, n=rbModel.polygons.size; i<n; i++) {
+			PolygonModel polygon = rbModel.polygons.get(i);
+			Vector2[] vertices = polygon.buffer;
+
+			for (int ii=0, nn=vertices.length; ii<nn; ii++) {
+				vertices[ii] = newVec().set(polygon.vertices.get(ii)).scl(scale);
+				vertices[ii].sub(origin);
+			}
+
+			PolygonShape shape = new PolygonShape();
+			shape.set(vertices);
+			shapes.add(shape);
+
+			for (int ii=0, nn=vertices.length; ii<nn; ii++) {
+				free(vertices[ii]);
+			}
+		}
+
+		for (int i=0, n=rbModel.circles.size; i<n; i++) {
+			CircleModel circle = rbModel.circles.get(i);
+			Vector2 center = newVec().set(circle.center).scl(scale);
+
+			CircleShape shape = new CircleShape();
+			shape.setPosition(center);
+			shape.setRadius(circle.radius * scale);
+			shapes.add(shape);
+
+			free(center);
+		}
+
+		return shapes;
+	}
+
+	/**
+	 * Releases the shapes used to attach fixtures. The loader can't be used
+	 * anymore afterwards.
+	 */
+	public void dispose() {
+		polygonShape.dispose();
+		circleShape.dispose();
+	}
+
 	/**
 	 * Gets the image path attached to the given name.
 	 */
@@ -0,0 +1,208 @@
+package org.avontuur.dcgracer.utils;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.World;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.joints.WheelJointDef;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import org.avontuur.dcgracer.component.CarEngine;
+import org.avontuur.dcgracer.component.MainPlayer;
+import org.avontuur.dcgracer.component.Motion;
+import org.avontuur.dcgracer.component.Physics;
+import org.avontuur.dcgracer.component.PlayerInput;
+import org.avontuur.dcgracer.component.WheelJoint;
+import org.avontuur.dcgracer.manager.ResourceManager;
+import org.avontuur.dcgracer.system.Box2dWorldSystem;
+import org.avontuur.dcgracer.system.ComponentMapperSystem;
+
+/**
+ * Spawns cars: a car body with a wheel on a suspension joint at either end, driven by the rear wheel.
+ *
+ * Everything that is the same for every car is set up once, when the prefab is created: the component layout of the
+ * entities (as artemis archetypes), the body, fixture and joint definitions, the shapes of the car body (parsed from
+ * the Physics Body Editor data and scaled to size) and of the wheels, and the sprites. Spawning a car only creates
+ * its bodies, joints and entities, and copies the sprites.
+ *
+ * The prefab keeps native Box2D shapes, so it must be disposed when it's no longer needed.
+ */
+public class CarPrefab implements Disposable {
+    // Width of the car body, in meters
+    public static final float CAR_WIDTH = 3.5f;
+    // Height of the car body, in meters; matches the aspect ratio of the car body texture.
+    public static final float CAR_HEIGHT = CAR_WIDTH * 261f / 874f;
+    public static final float WHEEL_RADIUS = 0.4f;
+    private static final float CAR_BODY_DENSITY = 1;
+
+    private final World artemisWorld;
+    private final ComponentMapperSystem mappers;
+    private final Box2dWorldSystem box2dSystem;
+    private final boolean withSprites;
+
+    // Component layouts of the entities of the player's car
+    private final Archetype playerCarBodyArchetype;
+    private final Archetype playerRearWheelArchetype;
+    // Component layouts of the entities of other cars; the rear wheel can be driven through its Motion component.
+    private final Archetype carBodyArchetype;
+    private final Archetype rearWheelArchetype;
+    // Front wheels are never driven
+    private final Archetype frontWheelArchetype;
+
+    // Definitions shared by all cars; bodies are only referred to while a car is being spawned.
+    private final BodyDef dynamicBodyDef = new BodyDef();
+    private final FixtureDef carBodyFixtureDef = new FixtureDef();
+    private final FixtureDef wheelFixtureDef = new FixtureDef();
+    private final WheelJointDef rearWheelJointDef = new WheelJointDef();
+    private final WheelJointDef frontWheelJointDef = new WheelJointDef();
+    private final Array<Shape> carBodyShapes;
+    private final CircleShape wheelShape = new CircleShape();
+
+    // Sprites copied for every car; null without sprites
+    private final Sprite carBodySprite;
+    private final Sprite wheelSprite;
+
+    /**
+     * @param artemisWorld World to spawn cars in
+     * @param withSprites True to give the cars sprites; requires the textures in {@link ResourceManager} to be loaded.
+     */
+    public CarPrefab(World artemisWorld, boolean withSprites) {
+        this.artemisWorld = artemisWorld;
+        this.mappers = artemisWorld.getSystem(ComponentMapperSystem.class);
+        this.box2dSystem = artemisWorld.getSystem(Box2dWorldSystem.class);
+        this.withSprites = withSprites;
+
+        ArchetypeBuilder base = new ArchetypeBuilder().add(Physics.class);
+        if (withSprites) {
+            base.add(org.avontuur.dcgracer.component.Sprite.class);
+        }
+        Archetype baseArchetype = base.build(artemisWorld);
+        carBodyArchetype = baseArchetype;
+        frontWheelArchetype = new ArchetypeBuilder(baseArchetype).add(WheelJoint.class).build(artemisWorld);
+        rearWheelArchetype = new ArchetypeBuilder(frontWheelArchetype).add(Motion.class).build(artemisWorld);
+        // The camera tracks the main player; the car engine sound is controlled by car speed and player inputs.
+        playerCarBodyArchetype = new ArchetypeBuilder(baseArchetype)
+                .add(MainPlayer.class).add(CarEngine.class).add(PlayerInput.class).build(artemisWorld);
+        // The player controls the rear wheel - rear wheel drive!
+        playerRearWheelArchetype = new ArchetypeBuilder(rearWheelArchetype).add(PlayerInput.class)
+                .build(artemisWorld);
+
+        dynamicBodyDef.type = BodyDef.BodyType.DynamicBody;
+
+        carBodyFixtureDef.density = CAR_BODY_DENSITY;
+        carBodyFixtureDef.friction = 1f;
+        carBodyFixtureDef.restitution = 0f;
+        // Polygon data created using PhysicsBodyEditor; what an awesome free tool!
+        BodyEditorLoader loader = new BodyEditorLoader(Gdx.files.internal("data/car_body_polygon.json"));
+        carBodyShapes = loader.createShapes("Car Body", CAR_WIDTH);
+        loader.dispose();
+
+        wheelShape.setRadius(WHEEL_RADIUS);
+        wheelFixtureDef.density = 0.5f;
+        wheelFixtureDef.restitution = 0.1f;
+        wheelFixtureDef.friction = 0.5f;
+        wheelFixtureDef.shape = wheelShape;
+
+        /// localAnchorA is relative to bodyA's origin
+        float wheelBodyAnchorY = 0;
+        setupWheelJointDef(rearWheelJointDef);
+        rearWheelJointDef.localAnchorA.set(0.8f, wheelBodyAnchorY);
+        setupWheelJointDef(frontWheelJointDef);
+        frontWheelJointDef.localAnchorA.set(2.65f, wheelBodyAnchorY);
+
+        if (withSprites) {
+            carBodySprite = new Sprite(ResourceManager.instance.carBody);
+            carBodySprite.setSize(CAR_WIDTH, CAR_HEIGHT);
+            // sprite Origin must match body origin; body origin is defined to be (0,0) in the json data file,
+            // generated by the Physics Body Editor.
+            carBodySprite.setOrigin(0, 0);
+
+            wheelSprite = new Sprite(ResourceManager.instance.wheel);
+            wheelSprite.setSize(WHEEL_RADIUS * 2f, WHEEL_RADIUS * 2f);
+            wheelSprite.setOrigin(wheelSprite.getWidth() / 2, wheelSprite.getHeight() / 2);
+        } else {
+            carBodySprite = null;
+            wheelSprite = null;
+        }
+    }
+
+    private static void setupWheelJointDef(WheelJointDef wheelJointDef) {
+        // move along which axis (I guess)
+        wheelJointDef.localAxisA.set(Vector2.Y); // along which axis the wheel can move
+        wheelJointDef.frequencyHz = 7; // Stiffness of the suspension. Low value is weak spring = less bounce
+        wheelJointDef.dampingRatio = 0.3f; // Rate at which spring frequency declines. Lower = longer bounce
+        wheelJointDef.maxMotorTorque = CAR_BODY_DENSITY * 10; // copypasta from some example
+    }
+
+    /**
+     * Spawns a car. The wheels start out at the position of the car body, and are pulled into place by their joints.
+     *
+     * @param x X coordinate of the car body's origin, its bottom-left corner, in world units
+     * @param y Y coordinate of the car body's origin, in world units
+     * @param mainPlayer True for the car controlled by the player, and tracked by the camera
+     * @return Entity of the car body
+     */
+    public int spawn(float x, float y, boolean mainPlayer) {
+        dynamicBodyDef.position.set(x, y);
+
+        Body carBody = box2dSystem.getBox2DWorld().createBody(dynamicBodyDef);
+        for (int i = 0; i < carBodyShapes.size; i++) {
+            carBodyFixtureDef.shape = carBodyShapes.get(i);
+            carBody.createFixture(carBodyFixtureDef);
+        }
+        carBodyFixtureDef.shape = null;
+        int carBodyEntity = createEntity(mainPlayer ? playerCarBodyArchetype : carBodyArchetype, carBody,
+                carBodySprite);
+
+        // not setting position of the wheel sprites; SpritePositioningSystem will take care of that for us!
+        spawnWheel(carBody, frontWheelJointDef, frontWheelArchetype);
+        spawnWheel(carBody, rearWheelJointDef, mainPlayer ? playerRearWheelArchetype : rearWheelArchetype);
+
+        return carBodyEntity;
+    }
+
+    private void spawnWheel(Body carBody, WheelJointDef wheelJointDef, Archetype archetype) {
+        Body wheelBody = box2dSystem.getBox2DWorld().createBody(dynamicBodyDef);
+        wheelBody.createFixture(wheelFixtureDef);
+
+        wheelJointDef.bodyA = carBody;
+        wheelJointDef.bodyB = wheelBody;
+        com.badlogic.gdx.physics.box2d.joints.WheelJoint wheelJoint =
+                (com.badlogic.gdx.physics.box2d.joints.WheelJoint)box2dSystem.getBox2DWorld().createJoint(
+                        wheelJointDef);
+        wheelJointDef.bodyA = null;
+        wheelJointDef.bodyB = null;
+
+        int e = createEntity(archetype, wheelBody, wheelSprite);
+        WheelJoint wheelJointComponent = mappers.wheelJointComponents.get(e);
+        wheelJointComponent.wheelJoint = wheelJoint;
+        wheelJointComponent.motorEnabled = wheelJointDef.enableMotor;
+        wheelJointComponent.motorSpeed = wheelJointDef.motorSpeed;
+    }
+
+    private int createEntity(Archetype archetype, Body body, Sprite sprite) {
+        int e = artemisWorld.create(archetype);
+        mappers.physicsComponents.get(e).body = body;
+        if (withSprites) {
+            mappers.spriteComponents.get(e).sprite = new Sprite(sprite);
+        }
+        return e;
+    }
+
+    @Override
+    public void dispose() {
+        for (Shape shape : carBodyShapes) {
+            shape.dispose();
+        }
+        carBodyShapes.clear();
+        wheelShape.dispose();
+    }
+}
@@ -0,0 +1,100 @@
+package org.avontuur.dcgracer.utils;
+
+import com.artemis.World;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.utils.Disposable;
+
+import org.avontuur.dcgracer.component.Physics;
+import org.avontuur.dcgracer.manager.ResourceManager;
+import org.avontuur.dcgracer.system.Box2dWorldSystem;
+import org.avontuur.dcgracer.system.CameraEnum;
+import org.avontuur.dcgracer.system.CameraUpdateSystem;
+import org.avontuur.dcgracer.system.ComponentMapperSystem;
+
+/**
+ * Creates the game entities in an artemis world. Entities can be created without sprites, for worlds that are only
+ * simulated and never drawn (e.g. when running headless). Cars are spawned from a {@link CarPrefab}, which is kept
+ * for the lifetime of the factory; dispose the factory along with the world.
+ */
+public class EntityFactory implements Disposable {
+    private static final float PLAYER_RADIUS = 0.25f;
+
+    private final World artemisWorld;
+    private final boolean withSprites;
+    // Spawns cars; set up on first use and kept for later games
+    private CarPrefab carPrefab;
+
+    /**
+     * @param artemisWorld World to create entities in
+     * @param withSprites True to give entities a sprite; requires the textures in {@link ResourceManager} to be loaded.
+     */
+    public EntityFactory(World artemisWorld, boolean withSprites) {
+        this.artemisWorld = artemisWorld;
+        this.withSprites = withSprites;
+    }
+
+    public void createCarBodyEntity() {
+        CameraUpdateSystem cameraUpdateSystem = artemisWorld.getSystem(CameraUpdateSystem.class);
+        if (carPrefab == null) {
+            carPrefab = new CarPrefab(artemisWorld, withSprites);
+        }
+
+        TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
+        // TODO: Position set here does not reflect actual car position in the game; probably because resize()
+        //       has never been called..?
+        float x = cam.viewportWidth * 0.2f;
+        float y = cam.viewportHeight * 1.1f + CarPrefab.CAR_HEIGHT / 2f;
+        carPrefab.spawn(x, y, true);
+    }
+
+    public void createPlayerEntity() {
+        Box2dWorldSystem box2dSystem = artemisWorld.getSystem(Box2dWorldSystem.class);
+        CameraUpdateSystem cameraUpdateSystem = artemisWorld.getSystem(CameraUpdateSystem.class);
+        ComponentMapperSystem mappers = artemisWorld.getSystem(ComponentMapperSystem.class);
+
+        CircleShape shape = new CircleShape();
+        shape.setRadius(PLAYER_RADIUS);
+        TrackingCamera cam = cameraUpdateSystem.getCamera(CameraEnum.STANDARD);
+        // Now create a BodyDefinition.  This defines the physics objects type and position in the simulation
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.DynamicBody;
+        // playerBody positions are at the center of the shape
+        bodyDef.position.set(cam.viewportWidth / 2, cam.viewportHeight + PLAYER_RADIUS);
+
+        Body playerBody = box2dSystem.getBox2DWorld().createBody(bodyDef);
+
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.density = 1f;
+        fixtureDef.restitution = 0.6f; // Makes it bounce
+        playerBody.createFixture(fixtureDef);
+
+        shape.dispose();
+
+        // TODO: This looks horrible. Is this really the way to go forward?
+        int e = artemisWorld.create();
+        mappers.playerInputComponents.create(e);
+        Physics physics = mappers.physicsComponents.create(e);
+        physics.body = playerBody;
+        if (withSprites) {
+            Sprite sprite = new Sprite(ResourceManager.instance.gameLogo);
+            sprite.setSize(PLAYER_RADIUS * 2f, PLAYER_RADIUS * 2f);
+            // Setting the origin is necessary to make rotation work correctly. Default origin is at bottom left
+            // corner, should be the center to match with box2d's rotation.
+            sprite.setOrigin(sprite.getWidth() / 2, sprite.getHeight() / 2);
+            mappers.spriteComponents.create(e).sprite = sprite;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (carPrefab != null) {
+            carPrefab.dispose();
+            carPrefab = null;
+        }
+    }
+}
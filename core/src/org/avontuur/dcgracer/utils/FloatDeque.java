@@ -0,0 +1,56 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Queue of floats, in a ring buffer: adding at the end, removing at the start, and access by index take constant
+ * time. Nothing is allocated unless the buffer has to grow.
+ */
+public class FloatDeque extends RingBuffer {
+    private float[] values;
+
+    public FloatDeque() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity Number of elements that fit before the buffer has to grow
+     */
+    public FloatDeque(int initialCapacity) {
+        values = new float[Math.max(initialCapacity, 1)];
+    }
+
+    public void addLast(float value) {
+        int capacity = grownCapacity(1);
+        if (capacity != values.length) {
+            float[] newValues = new float[capacity];
+            moveTo(values, newValues);
+            values = newValues;
+        }
+        values[index(size)] = value;
+        size++;
+    }
+
+    /**
+     * Removes elements from the start.
+     *
+     * @param count Number of elements to remove, at most {@link #size()}
+     */
+    public void removeFirst(int count) {
+        if (count < 0 || count > size) {
+            throw new IndexOutOfBoundsException("Removing " + count + " of " + size);
+        }
+        dropFirst(count);
+    }
+
+    /**
+     * @param i Position of the element, counting from the first one
+     */
+    public float get(int i) {
+        checkIndex(i);
+        return values[index(i)];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+}
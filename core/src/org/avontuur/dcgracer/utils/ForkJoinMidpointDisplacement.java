@@ -0,0 +1,109 @@
+package org.avontuur.dcgracer.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Midpoint displacement generator that spreads the work over a fork-join pool for large height maps. Generates
+ * exactly the same values as {@link MidpointDisplacement} for the same parameters and seed.
+ *
+ * Levels are calculated one after another, as each level depends on the previous one; the midpoints within a level
+ * are split up over the pool once there are enough of them.
+ *
+ * Only for the desktop and headless builds: fork-join is not available on GWT nor on older Android versions, and
+ * this class is excluded from the GWT module.
+ */
+public class ForkJoinMidpointDisplacement {
+    // Smallest number of iterations for which the work is split up; below this, it's not worth the overhead.
+    public static final int PARALLEL_ITERATIONS_THRESHOLD = 14;
+    // Number of midpoints calculated by a single task
+    private static final int MIDPOINTS_PER_TASK = 4096;
+
+    private final ForkJoinPool pool;
+
+    public ForkJoinMidpointDisplacement() {
+        this(new ForkJoinPool());
+    }
+
+    public ForkJoinMidpointDisplacement(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Generates a height map into a new array. See
+     * {@link MidpointDisplacement#generate(float[], int, float, float, float, float, long)}.
+     */
+    public float[] generate(final int numIterations, final float range, final float firstY, final float lastY,
+                            final float roughness, final long seed) {
+        float[] values = new float[MidpointDisplacement.numElements(numIterations)];
+        generate(values, numIterations, range, firstY, lastY, roughness, seed);
+        return values;
+    }
+
+    /**
+     * Generates a height map into an existing array. See
+     * {@link MidpointDisplacement#generate(float[], int, float, float, float, float, long)}.
+     */
+    public void generate(final float[] values, final int numIterations, final float range, final float firstY,
+                         final float lastY, final float roughness, final long seed) {
+        if (numIterations < PARALLEL_ITERATIONS_THRESHOLD) {
+            MidpointDisplacement.generate(values, numIterations, range, firstY, lastY, roughness, seed);
+            return;
+        }
+
+        int numElements = MidpointDisplacement.numElements(numIterations);
+        if (values.length < numElements) {
+            throw new IllegalArgumentException("Array of size " + values.length + " too small for " + numIterations
+                    + " iterations");
+        }
+        values[0] = firstY;
+        values[numElements - 1] = lastY;
+
+        float levelRange = range / 2;
+        for (int step = numElements - 1; step > 1; step /= 2) {
+            int numMidpoints = (numElements - 1) / step;
+            if (numMidpoints <= MIDPOINTS_PER_TASK) {
+                MidpointDisplacement.displaceLevel(values, step, step / 2, numElements - 1, levelRange, seed);
+            } else {
+                pool.invoke(new LevelTask(values, step, 0, numMidpoints, levelRange, seed));
+            }
+            levelRange *= roughness;
+        }
+    }
+
+    // Calculates a range of the midpoints of a level, splitting itself up until the range is small enough.
+    private static class LevelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] values;
+        private final int step;
+        // range of midpoints to calculate, as numbers of the midpoints within the level (not indices in values)
+        private final int firstMidpoint;
+        private final int lastMidpoint;
+        private final float range;
+        private final long seed;
+
+        LevelTask(float[] values, int step, int firstMidpoint, int lastMidpoint, float range, long seed) {
+            this.values = values;
+            this.step = step;
+            this.firstMidpoint = firstMidpoint;
+            this.lastMidpoint = lastMidpoint;
+            this.range = range;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            int count = lastMidpoint - firstMidpoint;
+            if (count <= MIDPOINTS_PER_TASK) {
+                int half = step / 2;
+                MidpointDisplacement.displaceLevel(values, step, half + firstMidpoint * step,
+                        half + lastMidpoint * step, range, seed);
+            } else {
+                int middle = firstMidpoint + count / 2;
+                invokeAll(new LevelTask(values, step, firstMidpoint, middle, range, seed),
+                        new LevelTask(values, step, middle, lastMidpoint, range, seed));
+            }
+        }
+    }
+}
@@ -26,16 +26,11 @@ public class GameMath {
      * @return
      *        Returns an array of floats. The indices are the X coordinates, the values are the Y coordinates. The
      *        Y coordinates are of value 0 <= Y <= range
+     * @see MidpointDisplacement for a seedable version that doesn't allocate
      */
     public static float[] midpointDisplacement2D(final int numIterations, final float range, final float firstY,
                                                  final float lastY, final float roughness) {
-        int numElements = (int)Math.pow(2, numIterations) + 1;
-        float[] result = new float[numElements];
-        result[0] = firstY;
-        result[numElements - 1] = lastY;
-
-        calculateMidpoint(result, 0, numElements - 1, range / 2, roughness);
-        return result;
+        return MidpointDisplacement.generate(numIterations, range, firstY, lastY, roughness, random.nextLong());
     }
 
     /**
@@ -47,32 +42,4 @@ public class GameMath {
     public static float random(float start, float end) {
         return start + random.nextFloat() * (end - start);
     }
-
-    /**
-     *
-     * @param values
-     *        Array with y-coordinates
-     * @param firstIndex
-     *        Index in values of left side of segment
-     * @param lastIndex
-     *        Index in values of right side of segment
-     * @param range
-     *        Maximum value of random offset to be applied to middle of segment
-     * @param roughness
-     *        How 'rough' the terrain will look (0 < roughness < 1). Closer to 1 means rougher.
-     */
-    private static void calculateMidpoint(float[] values, final int firstIndex, final int lastIndex,
-                                          final float range, final float roughness) {
-        // Recursive implementation of the midfield displacement algorithm that generates a 2-dimensional terrain.
-        // TODO: write a test for this function!
-        //float midPoint = MathUtils.clamp((values[firstIndex] + values[lastIndex]) / 2f + random(-range, range), 0,
-        //        range * 2);
-        float midPoint = (values[firstIndex] + values[lastIndex]) / 2f + random(-range, range);
-        int midIndex = firstIndex + ((lastIndex - firstIndex) / 2);
-        values[midIndex] = midPoint;
-        if (midIndex != firstIndex + 1) {
-            calculateMidpoint(values, firstIndex, midIndex, range * roughness, roughness);
-            calculateMidpoint(values, midIndex, lastIndex, range * roughness, roughness);
-        }
-    }
 }
@@ -0,0 +1,59 @@
+package org.avontuur.dcgracer.utils;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Queue of ints, in a ring buffer: adding at the end, removing at the start, and access by index take constant time.
+ * Nothing is boxed, and nothing is allocated unless the buffer has to grow.
+ */
+public class IntDeque extends RingBuffer {
+    private int[] values;
+
+    public IntDeque() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity Number of elements that fit before the buffer has to grow
+     */
+    public IntDeque(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void addLast(int value) {
+        int capacity = grownCapacity(1);
+        if (capacity != values.length) {
+            int[] newValues = new int[capacity];
+            moveTo(values, newValues);
+            values = newValues;
+        }
+        values[index(size)] = value;
+        size++;
+    }
+
+    public int removeFirst() {
+        int value = first();
+        dropFirst(1);
+        return value;
+    }
+
+    public int first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return values[index(0)];
+    }
+
+    /**
+     * @param i Position of the element, counting from the first one
+     */
+    public int get(int i) {
+        checkIndex(i);
+        return values[index(i)];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+}
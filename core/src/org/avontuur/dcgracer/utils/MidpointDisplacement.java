@@ -0,0 +1,105 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Midpoint displacement generator for 2D side-view height maps.
+ *
+ * The algorithm runs level by level instead of recursively: each level fills in the midpoints between the points
+ * of the previous level, halving the distance between points. Random offsets are not drawn from a shared random
+ * generator, but derived from the seed and the index of the point (SplitMix64, the generator behind Java 8's
+ * SplittableRandom). That makes the result only depend on the seed, whatever order the points are calculated in,
+ * so a level can be regenerated identically, and large levels can be split up over multiple threads
+ * (see {@link ForkJoinMidpointDisplacement}).
+ */
+public final class MidpointDisplacement {
+    // Increment between the SplitMix64 states of consecutive points
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // Random floats are made of 24 random bits
+    private static final float FLOAT_UNIT = 1f / (1 << 24);
+
+    private MidpointDisplacement() {
+    }
+
+    /**
+     * @param numIterations Number of iterations of the algorithm
+     * @return Number of data points generated with this many iterations, which is 2^numIterations + 1
+     */
+    public static int numElements(final int numIterations) {
+        return (1 << numIterations) + 1;
+    }
+
+    /**
+     * Generates a height map into a new array. See {@link #generate(float[], int, float, float, float, float, long)}.
+     */
+    public static float[] generate(final int numIterations, final float range, final float firstY, final float lastY,
+                                   final float roughness, final long seed) {
+        float[] values = new float[numElements(numIterations)];
+        generate(values, numIterations, range, firstY, lastY, roughness, seed);
+        return values;
+    }
+
+    /**
+     * Generates a list of values to render a 2D side-view landscape with random inclinations (height map). Does not
+     * allocate any memory.
+     *
+     * @param values
+     *        Array to store the values in. The indices are the X coordinates, the values are the Y coordinates. Only
+     *        the first 2^numIterations+1 elements are written to.
+     * @param numIterations
+     *        This determines how many data points are generated, which is 2^numIterations+1.
+     * @param range
+     *        This determines the range (maximum Y value) for the data points
+     * @param firstY
+     *        Y value of first coordinate. Useful for linking up multiple segments.
+     * @param lastY
+     *        Y value of last coordinate. Useful for linking up multiple segments.
+     * @param roughness
+     *        How 'rough' the terrain will look (0 < roughness < 1). Closer to 1 means rougher.
+     * @param seed
+     *        Seed for the random offsets. The same seed and parameters always give the same values.
+     */
+    public static void generate(final float[] values, final int numIterations, final float range, final float firstY,
+                                final float lastY, final float roughness, final long seed) {
+        int numElements = numElements(numIterations);
+        if (values.length < numElements) {
+            throw new IllegalArgumentException("Array of size " + values.length + " too small for " + numIterations
+                    + " iterations");
+        }
+        values[0] = firstY;
+        values[numElements - 1] = lastY;
+
+        float levelRange = range / 2;
+        for (int step = numElements - 1; step > 1; step /= 2) {
+            displaceLevel(values, step, step / 2, numElements - 1, levelRange, seed);
+            levelRange *= roughness;
+        }
+    }
+
+    /**
+     * Calculates the midpoints of one level of the algorithm, or a part of it.
+     *
+     * @param values Array with y-coordinates
+     * @param step Distance between the points of the previous level
+     * @param firstIndex Index of first midpoint to calculate
+     * @param lastIndex Index of last midpoint to calculate (exclusive)
+     * @param range Maximum value of random offset to be applied to the midpoints
+     * @param seed Seed for the random offsets
+     */
+    static void displaceLevel(final float[] values, final int step, final int firstIndex, final int lastIndex,
+                              final float range, final long seed) {
+        int half = step / 2;
+        for (int i = firstIndex; i < lastIndex; i += step) {
+            values[i] = (values[i - half] + values[i + half]) / 2f + (random(seed, i) * 2f - 1f) * range;
+        }
+    }
+
+    /**
+     * @return Random value for the data point at the given index, 0 <= value < 1
+     */
+    static float random(final long seed, final int index) {
+        long z = seed + (index + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+        return (z >>> 40) * FLOAT_UNIT;
+    }
+}
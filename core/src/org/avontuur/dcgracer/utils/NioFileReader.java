@@ -0,0 +1,67 @@
+package org.avontuur.dcgracer.utils;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads level files with java.nio. Files that exist on the file system are memory-mapped, so their pages are only
+ * loaded when they are used. Anything else, like assets packed into an Android APK, is read through a channel into a
+ * direct buffer in one go.
+ *
+ * Only for the desktop, headless and Android builds; this class is excluded from the GWT module.
+ */
+public class NioFileReader implements BakedTerrainSource.FileReader {
+    @Override
+    public ByteBuffer read(FileHandle file) {
+        try {
+            File systemFile = file.type() == Files.FileType.Classpath ? null : file.file();
+            if (systemFile != null && systemFile.isFile()) {
+                return map(systemFile);
+            }
+            return readFully(file);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading " + file, e);
+        }
+    }
+
+    private ByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid after the channel is closed.
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            StreamUtils.closeQuietly(randomAccessFile);
+        }
+    }
+
+    private ByteBuffer readFully(FileHandle file) throws IOException {
+        long length = file.length();
+        if (length <= 0) {
+            // Size unknown, e.g. for compressed Android assets
+            return ByteBuffer.wrap(file.readBytes());
+        }
+        ByteBuffer buffer = BufferUtils.newByteBuffer((int)length);
+        ReadableByteChannel channel = Channels.newChannel(file.read());
+        try {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // keep reading
+            }
+        } finally {
+            StreamUtils.closeQuietly(channel);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
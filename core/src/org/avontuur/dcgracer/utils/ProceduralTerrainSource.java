@@ -0,0 +1,85 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Generates terrain chunks on demand, using midpoint displacement. Each chunk is generated from the seed and its
+ * own index only, so any chunk can be (re)generated at any time with the same result. The heights at the chunk
+ * boundaries are picked first, and each chunk is generated between its two boundary heights; this makes adjacent
+ * chunks join up.
+ */
+public class ProceduralTerrainSource implements TerrainSource {
+    // Offset between the seeds of consecutive chunks. Spaces them so far apart that the random offsets of the data
+    // points of different chunks never coincide (see MidpointDisplacement).
+    private static final long CHUNK_SEED_STRIDE = 0x9e3779b97f4a7c15L << 24;
+
+    private final int chunkIterations;
+    private final float range;
+    private final float scaleX;
+    private final float scaleY;
+    private final float roughness;
+    private final int numChunks;
+    private final long seed;
+    private final int pointsPerChunk;
+    // Scratch space for the raw height map of a chunk
+    private final float[] heights;
+
+    /**
+     * @param chunkIterations
+     *        Number of midpoint displacement iterations per chunk; a chunk has 2^chunkIterations+1 data points.
+     * @param range
+     *        Upper vertical range of the terrain data.
+     * @param scaleX
+     *        Distance between data points, in world units.
+     * @param scaleY
+     *        Multiply y coordinates by this factor; allows one to stretch (>1) or condense (<1) the vertical range.
+     * @param roughness
+     *        How rough the terrain should look. 0 < roughness < 1. Closer to 1 implies rougher terrain.
+     * @param numChunks
+     *        Length of the level in chunks, or -1 for endless terrain.
+     * @param seed
+     *        Seed for the terrain; the same seed and parameters always generate the same terrain.
+     */
+    public ProceduralTerrainSource(final int chunkIterations, final float range, final float scaleX,
+                                   final float scaleY, final float roughness, final int numChunks, final long seed) {
+        this.chunkIterations = chunkIterations;
+        this.range = range;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.roughness = roughness;
+        this.numChunks = numChunks;
+        this.seed = seed;
+        this.pointsPerChunk = MidpointDisplacement.numElements(chunkIterations);
+        this.heights = new float[pointsPerChunk];
+    }
+
+    @Override
+    public int getPointsPerChunk() {
+        return pointsPerChunk;
+    }
+
+    @Override
+    public int getNumChunks() {
+        return numChunks;
+    }
+
+    @Override
+    public void getChunk(final int chunkIndex, final float[] dataPoints) {
+        MidpointDisplacement.generate(heights, chunkIterations, range, getBoundaryHeight(chunkIndex),
+                getBoundaryHeight(chunkIndex + 1), roughness, seed + chunkIndex * CHUNK_SEED_STRIDE);
+
+        // Convert to alternating x,y coordinates
+        float xOffset = (float)chunkIndex * (pointsPerChunk - 1) * scaleX;
+        for (int i = 0; i < pointsPerChunk; i++) {
+            dataPoints[i * 2] = xOffset + (float)i * scaleX;
+            dataPoints[i * 2 + 1] = heights[i] * scaleY;
+        }
+    }
+
+    // Raw height at the start of a chunk, 0 <= height <= range
+    private float getBoundaryHeight(final int chunkIndex) {
+        if (chunkIndex == 0) {
+            // Start the level halfway up the range
+            return range / 2;
+        }
+        return MidpointDisplacement.random(~seed, chunkIndex) * range;
+    }
+}
@@ -0,0 +1,56 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Bookkeeping of a ring buffer of primitives, shared by {@link IntDeque} and {@link FloatDeque}: the elements are
+ * stored in a backing array from position head onwards, wrapping around to the start of the array.
+ */
+abstract class RingBuffer {
+    // index, in the backing array, of the first element
+    private int head;
+    int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // Length of the backing array
+    abstract int capacity();
+
+    // Index, in the backing array, of the element at a position, counting from the first element
+    final int index(int i) {
+        int index = head + i;
+        return index < capacity() ? index : index - capacity();
+    }
+
+    // Drops the first elements
+    final void dropFirst(int count) {
+        head = index(count);
+        size -= count;
+    }
+
+    // Length the backing array needs to hold more elements: the current length if they fit, otherwise at least
+    // double that.
+    final int grownCapacity(int extra) {
+        int needed = size + extra;
+        return needed <= capacity() ? capacity() : Math.max(needed, capacity() * 2);
+    }
+
+    // Copies the elements, in order, to the start of a new backing array; the subclass switches to that array next.
+    final void moveTo(Object values, Object newValues) {
+        int firstPart = Math.min(size, capacity() - head);
+        System.arraycopy(values, head, newValues, 0, firstPart);
+        System.arraycopy(values, 0, newValues, firstPart, size - firstPart);
+        head = 0;
+    }
+
+    final void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + size);
+        }
+    }
+}
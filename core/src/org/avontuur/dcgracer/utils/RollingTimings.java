@@ -0,0 +1,84 @@
+package org.avontuur.dcgracer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent samples of a duration, such as the time a system takes each frame, and calculates
+ * statistics over them. Adding a sample does not allocate any memory.
+ */
+public class RollingTimings {
+    // Most recent samples, in milliseconds; a ring buffer once it's full
+    private final float[] samples;
+    // Scratch space for sorting the samples
+    private final float[] sorted;
+    // index in samples where the next sample goes
+    private int next;
+    // number of samples in the window, up to samples.length
+    private int count;
+
+    /**
+     * @param windowSize Number of samples kept; older samples are dropped.
+     */
+    public RollingTimings(int windowSize) {
+        samples = new float[windowSize];
+        sorted = new float[windowSize];
+    }
+
+    public void add(float millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * @return Number of samples in the window
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return Shortest duration in the window, in milliseconds; 0 if there are no samples.
+     */
+    public float getMin() {
+        if (count == 0) {
+            return 0;
+        }
+        float min = samples[0];
+        for (int i = 1; i < count; i++) {
+            min = Math.min(min, samples[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @return Average duration in the window, in milliseconds; 0 if there are no samples.
+     */
+    public float getAverage() {
+        if (count == 0) {
+            return 0;
+        }
+        float total = 0;
+        for (int i = 0; i < count; i++) {
+            total += samples[i];
+        }
+        return total / count;
+    }
+
+    /**
+     * @param percentile 0 < percentile <= 100
+     * @return Duration that the given percentage of the samples in the window does not exceed, in milliseconds; 0 if
+     *         there are no samples.
+     */
+    public float getPercentile(float percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = (int)Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
@@ -0,0 +1,67 @@
+package org.avontuur.dcgracer.utils;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Pool of objects that come in different sizes, such as arrays or objects wrapping arrays. Freed objects are only
+ * handed out again for the same size. Terrain segments only come in a handful of sizes, so after the first few
+ * segments every object needed is already in the pool.
+ *
+ * @param <T> Type of the pooled objects
+ */
+public abstract class SizedPool<T> {
+    // free objects, by size
+    private final IntMap<Array<T>> freeObjects = new IntMap<Array<T>>();
+    // maximum number of free objects kept per size
+    private int max = Integer.MAX_VALUE;
+
+    /**
+     * @return A free object of the given size, or a new one if there is none.
+     */
+    public T obtain(int size) {
+        Array<T> free = freeObjects.get(size);
+        if (free == null || free.size == 0) {
+            return newObject(size);
+        }
+        return free.pop();
+    }
+
+    /**
+     * Returns an object to the pool. It must not be used by the caller anymore. If the pool already holds the
+     * maximum number of free objects of this size, the object is left to the garbage collector.
+     *
+     * @param size Size the object was obtained with
+     */
+    public void free(int size, T object) {
+        Array<T> free = freeObjects.get(size);
+        if (free == null) {
+            free = new Array<T>(false, 4);
+            freeObjects.put(size, free);
+        }
+        if (free.size < max) {
+            free.add(object);
+        }
+    }
+
+    /**
+     * Sets the maximum number of free objects kept for each size. Free objects beyond the new maximum are dropped.
+     */
+    public void setMax(int max) {
+        this.max = max;
+        for (Array<T> free : freeObjects.values()) {
+            if (free.size > max) {
+                free.truncate(max);
+            }
+        }
+    }
+
+    /**
+     * Removes all free objects from the pool.
+     */
+    public void clear() {
+        freeObjects.clear();
+    }
+
+    protected abstract T newObject(int size);
+}
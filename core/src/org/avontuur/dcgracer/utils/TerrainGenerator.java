@@ -34,6 +34,25 @@ public abstract class TerrainGenerator {
                                               final float firstY, final float roughness) {
         float[] terrainDataPointsRaw = GameMath.midpointDisplacement2D(numIterations, range, firstY / scaleY,
                 range, roughness);
+        return toTerrainData(terrainDataPointsRaw, scaleX, scaleY, xOffset);
+    }
+
+    /**
+     * Generates a 2D side-view natural looking terrain that can be regenerated from its seed. See
+     * {@link #generateTerrainData(int, float, float, float, float, float, float)} for the other parameters.
+     * @param seed
+     *        Seed for the terrain; the same seed and parameters always generate the same terrain.
+     */
+    public static float[] generateTerrainData(final int numIterations, final float range, final float scaleX,
+                                              final float scaleY, final float xOffset,
+                                              final float firstY, final float roughness, final long seed) {
+        float[] terrainDataPointsRaw = MidpointDisplacement.generate(numIterations, range, firstY / scaleY,
+                range, roughness, seed);
+        return toTerrainData(terrainDataPointsRaw, scaleX, scaleY, xOffset);
+    }
+
+    private static float[] toTerrainData(final float[] terrainDataPointsRaw, final float scaleX, final float scaleY,
+                                         final float xOffset) {
         // + 3 * 2: adding vertices to make it a closed simple polygon so it can be filled with a background texture
         float[] terrainDataPoints = new float[terrainDataPointsRaw.length * 2];
 
@@ -47,4 +66,59 @@ public abstract class TerrainGenerator {
 
         return terrainDataPoints;
     }
+
+    /**
+     * Creates the closed simple polygon outlining a segment of terrain: the terrain surface, closed off by the
+     * x-axis (y=0), so it can be filled with a texture and used as physics shape.
+     * @param terrainData
+     *        Terrain data, alternating between x and y coordinates, as generated by generateTerrainData.
+     * @param indexFrom
+     *        Index in terrainData of the x coordinate of the first data point of the segment (inclusive).
+     * @param indexTo
+     *        Index in terrainData right after the last data point of the segment (exclusive).
+     * @return
+     *        Vertices of the polygon, alternating between x and y coordinates. It has 3 more coordinates than the
+     *        segment: the bottom-right and bottom-left corners, and a copy of the first coordinate.
+     */
+    public static float[] createSegmentPolygon(final float[] terrainData, final int indexFrom, final int indexTo) {
+        float[] segment = new float[segmentPolygonSize(indexFrom, indexTo)];
+        createSegmentPolygon(terrainData, indexFrom, indexTo, segment);
+        return segment;
+    }
+
+    /**
+     * Same as {@link #createSegmentPolygon(float[], int, int)}, but writes the polygon into an existing array.
+     * @param segment
+     *        Array to write the vertices to, of size {@link #segmentPolygonSize(int, int)}.
+     */
+    public static void createSegmentPolygon(final float[] terrainData, final int indexFrom, final int indexTo,
+                                            final float[] segment) {
+        System.arraycopy(terrainData, indexFrom, segment, 0, indexTo - indexFrom);
+        closePolygon(segment);
+    }
+
+    /**
+     * @return Size of the array holding the polygon for a segment, see {@link #createSegmentPolygon(float[], int, int)}
+     */
+    public static int segmentPolygonSize(final int indexFrom, final int indexTo) {
+        // reserve extra space for 3 coordinates to close the polygon.
+        return indexTo - indexFrom + 3 * 2;
+    }
+
+    private static void closePolygon(float[] segments) {
+        //this assumes the last 3 data points in the segments array are to be populated with the polygon-closing
+        //coordinates, and that there are at least 2 data points in segments.
+        int closePolygonStartIndex = segments.length - 2 * 3;
+
+        // add the 3 vertices to make it a closed polygon
+        // Bottom-right X&Y; get X from previous coordinate, Y=0
+        segments[closePolygonStartIndex] = segments[closePolygonStartIndex - 2];
+        segments[closePolygonStartIndex + 1 ] = 0;
+        // Bottom-left X&Y: X=same as X of first coordinate, Y=0 again
+        segments[closePolygonStartIndex + 2] = segments[0];
+        segments[closePolygonStartIndex + 3] = 0;
+        // Finally, close the polygon by copying the first coordinate.
+        segments[closePolygonStartIndex + 4] = segments[0];
+        segments[closePolygonStartIndex + 5] = segments[1];
+    }
 }
@@ -0,0 +1,184 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Answers "what is the ground height at x?" for a stretch of terrain, without raycasts or searching: the data points
+ * of the terrain are evenly spaced horizontally (see {@link TerrainSource}), so the data points around any x follow
+ * directly from the distance to a data point of which the x coordinate is known. Between data points, the ground is
+ * a straight line, as it is in the physics world.
+ *
+ * The index covers a window of the terrain that moves from left to right: segments are added on the right, and
+ * data points are dropped on the left. The data point at x is estimated from the first data point of the most
+ * recently added segment, so the estimate doesn't drift however far into the level, and then settled against the x
+ * coordinates of the data points themselves: heights are interpolated between the same vertices the physics world
+ * has, rounding included.
+ */
+public class TerrainHeightIndex {
+    // Number of indices in segment vertex arrays used for each datapoint.
+    private static final int INDICES_PER_DATAPOINT = 2;
+    // Number of vertices closing a segment polygon, after its surface points
+    private static final int POLYGON_CLOSING_VERTICES = 3;
+
+    // x coordinates and heights of the data points, from left to right
+    private final FloatDeque xs = new FloatDeque(256);
+    private final FloatDeque heights = new FloatDeque(256);
+    // horizontal distance between data points, in world units; 0 until it's known
+    private float spacing;
+    // x coordinate of the first data point of the most recently added segment, in world units, and its position in
+    // heights
+    private float anchorX;
+    private int anchorPosition;
+    // x coordinate of the last data point, in world units
+    private float endX;
+
+    /**
+     * Adds the surface of a segment on the right.
+     *
+     * @param segmentVertices Vertices of the closed polygon of a terrain segment, see
+     *                        {@link TerrainGenerator#createSegmentPolygon(float[], int, int, float[])}. Unless the
+     *                        index is empty, the segment must start with the last data point of the index.
+     */
+    public void addSegment(float[] segmentVertices) {
+        int numSurfacePoints = segmentVertices.length / INDICES_PER_DATAPOINT - POLYGON_CLOSING_VERTICES;
+        float segmentStartX = segmentVertices[0];
+        if (spacing == 0 && numSurfacePoints > 1) {
+            // Over the whole segment, so the rounding of the x coordinates hardly matters.
+            spacing = (segmentVertices[(numSurfacePoints - 1) * INDICES_PER_DATAPOINT] - segmentStartX)
+                    / (numSurfacePoints - 1);
+        }
+
+        int first = 0;
+        if (heights.size() > 0) {
+            // Adjacent segments share their boundary data point; its x coordinates may differ by rounding.
+            if (Math.abs(segmentStartX - endX) > spacing / 2) {
+                throw new IllegalArgumentException("Segment starts at x=" + segmentStartX
+                        + ", not at the end of the index, x=" + endX);
+            }
+            first = 1;
+        }
+        anchorX = segmentStartX;
+        anchorPosition = heights.size() - first;
+
+        for (int i = first; i < numSurfacePoints; i++) {
+            xs.addLast(segmentVertices[i * INDICES_PER_DATAPOINT]);
+            heights.addLast(segmentVertices[i * INDICES_PER_DATAPOINT + 1]);
+        }
+        endX = segmentVertices[(numSurfacePoints - 1) * INDICES_PER_DATAPOINT];
+    }
+
+    /**
+     * Drops the data points that are no longer needed to answer queries at or beyond an x coordinate.
+     *
+     * @param x X coordinate, in world units
+     */
+    public void removeBefore(float x) {
+        if (spacing == 0) {
+            return;
+        }
+        // Keep the data point at or left of x, for interpolation, and always the last one.
+        int remove = Math.min((int)Math.floor(getPosition(x)), heights.size() - 1);
+        if (remove <= 0) {
+            return;
+        }
+        xs.removeFirst(remove);
+        heights.removeFirst(remove);
+        anchorPosition -= remove;
+    }
+
+    public void clear() {
+        xs.clear();
+        heights.clear();
+        spacing = 0;
+        anchorX = 0;
+        anchorPosition = 0;
+        endX = 0;
+    }
+
+    /**
+     * @return True if there is terrain at x in the index
+     */
+    public boolean contains(float x) {
+        return heights.size() > 0 && x >= getStartX() && x <= endX;
+    }
+
+    /**
+     * @return X coordinate of the first data point in the index, in world units
+     */
+    public float getStartX() {
+        return heights.size() > 0 ? xs.get(0) : 0;
+    }
+
+    /**
+     * @return X coordinate of the last data point in the index, in world units
+     */
+    public float getEndX() {
+        return endX;
+    }
+
+    /**
+     * @param x X coordinate, in world units. Outside of the index, the height at the nearest end is returned.
+     * @return Height of the ground at x, in world units
+     */
+    public float getHeight(float x) {
+        if (heights.size() == 0) {
+            throw new IllegalStateException("No terrain in the index");
+        }
+        if (heights.size() == 1) {
+            return heights.get(0);
+        }
+        int i = findSegmentIndex(x);
+        float leftX = xs.get(i);
+        float fraction = Math.max(0, Math.min((x - leftX) / (xs.get(i + 1) - leftX), 1));
+        float left = heights.get(i);
+        return left + (heights.get(i + 1) - left) * fraction;
+    }
+
+    /**
+     * @param x X coordinate, in world units. Outside of the index, the slope at the nearest end is returned.
+     * @return Slope of the ground at x: the rise in height per world unit to the right. Where two straight pieces of
+     *         ground meet, the slope of the right one.
+     */
+    public float getSlope(float x) {
+        if (heights.size() == 0) {
+            throw new IllegalStateException("No terrain in the index");
+        }
+        if (heights.size() == 1) {
+            return 0;
+        }
+        int i = findSegmentIndex(x);
+        return (heights.get(i + 1) - heights.get(i)) / (xs.get(i + 1) - xs.get(i));
+    }
+
+    /**
+     * Looks up the heights at a range of evenly spaced x coordinates, see {@link #getHeight(float)}.
+     *
+     * @param fromX X coordinate of the first height, in world units
+     * @param stepX Distance between the x coordinates, in world units
+     * @param count Number of heights to look up
+     * @param heights Array to write the heights to
+     * @param offset Index in heights to write the first height to
+     */
+    public void getHeights(float fromX, float stepX, int count, float[] heights, int offset) {
+        for (int i = 0; i < count; i++) {
+            heights[offset + i] = getHeight(fromX + i * stepX);
+        }
+    }
+
+    // Position of an x coordinate in heights, in data points; fractions lie between data points.
+    private float getPosition(float x) {
+        return anchorPosition + (x - anchorX) / spacing;
+    }
+
+    // Index of the data point that starts the straight piece of ground at x. The estimate from the anchor is at most
+    // a data point or so off, from rounding.
+    private int findSegmentIndex(float x) {
+        int last = heights.size() - 2;
+        int i = Math.max(0, Math.min((int)Math.floor(getPosition(x)), last));
+        while (i > 0 && x < xs.get(i)) {
+            i--;
+        }
+        while (i < last && x >= xs.get(i + 1)) {
+            i++;
+        }
+        return i;
+    }
+}
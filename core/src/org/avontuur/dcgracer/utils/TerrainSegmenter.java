@@ -0,0 +1,160 @@
+package org.avontuur.dcgracer.utils;
+
+import com.badlogic.gdx.utils.Queue;
+
+import org.avontuur.dcgracer.component.Terrain;
+
+/**
+ * Cuts the terrain of a level into segments, from left to right: closed polygons of a fixed number of data points,
+ * see {@link TerrainGenerator#createSegmentPolygon(float[], int, int, float[])}. Adjacent segments share their
+ * boundary data point. Chunks are requested from the terrain source as the segments reach them.
+ *
+ * Segments can be cut ahead of time with {@link #prepare(float, MeshBuilder)}, e.g. on another thread while the
+ * level isn't played yet, along with the vertex data of their meshes; they are handed out first. A segmenter may
+ * only be used by one thread at a time.
+ */
+public class TerrainSegmenter {
+    /**
+     * Computes the vertex data of the mesh of a segment, for segments cut ahead of time. May be called on another
+     * thread, so it must not use the graphics context.
+     */
+    public interface MeshBuilder {
+        /**
+         * @param segmentVertices Vertices of the segment's polygon
+         * @return Vertex data of the segment's mesh, in a new array
+         */
+        float[] buildMeshVertices(float[] segmentVertices);
+    }
+
+    // Number of indices in array terrainDataPoints used for each datapoint.
+    private static final int INDICES_PER_DATAPOINT = 2;
+
+    // Supplies the terrain data, one chunk at a time
+    private final TerrainSource terrainSource;
+    // terrain data points of the chunk segments are currently cut from - a list of coordinates expressed as
+    // sequential x and y coordinates, e.g. [x0, y0, x1, y1, ..]
+    private final float[] terrainDataPoints;
+    // index of the chunk in terrainDataPoints
+    private int terrainChunkIndex;
+    // start index, in terrainDataPoints, for next segment to be cut
+    private int nextTerrainDataPointsIndex;
+    // number of data points in a segment
+    private final int terrainDataPointsPerSegment;
+    // Segments cut ahead of time, from left to right
+    private final Queue<float[]> preparedSegments = new Queue<float[]>();
+    // Mesh vertex data of the segments cut ahead of time, or nulls if there's no mesh builder
+    private final Queue<float[]> preparedMeshVertices = new Queue<float[]>();
+
+    /**
+     * @param terrainSource Supplies the terrain data of the level
+     * @param terrainDataPointsPerSegment Number of data points in a segment; segments at the end of a chunk may have
+     *                                    fewer.
+     */
+    public TerrainSegmenter(final TerrainSource terrainSource, final int terrainDataPointsPerSegment) {
+        this.terrainSource = terrainSource;
+        this.terrainDataPointsPerSegment = terrainDataPointsPerSegment;
+        this.terrainDataPoints = new float[terrainSource.getPointsPerChunk() * INDICES_PER_DATAPOINT];
+        this.terrainChunkIndex = 0;
+        terrainSource.getChunk(terrainChunkIndex, terrainDataPoints);
+    }
+
+    /**
+     * Cuts the segments up to the given x coordinate ahead of time, into new arrays, and builds their meshes' vertex
+     * data. Does not need anything but the terrain source and the mesh builder, so it may run on any thread.
+     *
+     * @param untilX Segments are cut until the next one starts at or beyond this x coordinate, in world units.
+     * @param meshBuilder Builds the mesh vertex data of the segments, or null if the segments aren't drawn.
+     */
+    public void prepare(final float untilX, final MeshBuilder meshBuilder) {
+        while (!endOfCutting() && getCutBoundary() < untilX) {
+            float[] segment = new float[nextSegmentSize()];
+            cutSegment(segment);
+            preparedSegments.addLast(segment);
+            preparedMeshVertices.addLast(meshBuilder != null ? meshBuilder.buildMeshVertices(segment) : null);
+        }
+    }
+
+    /**
+     * @return True if all segments have been handed out.
+     */
+    public boolean endOfTerrain() {
+        return preparedSegments.size == 0 && endOfCutting();
+    }
+
+    /**
+     * @return X coordinate of the start of the next segment, which is the end of the segments handed out so far.
+     *         Once all segments have been handed out, this is the end of the level.
+     */
+    public float getNextSegmentStart() {
+        if (preparedSegments.size > 0) {
+            return preparedSegments.first()[0];
+        }
+        return getCutBoundary();
+    }
+
+    /**
+     * Hands out the next segment. Must not be called at the end of the terrain.
+     *
+     * @param verticesPool Pool to obtain the vertex array from, unless the segment was prepared ahead of time.
+     * @param terrain Gets the vertices of the segment's polygon, and the vertex data of its mesh if the segment
+     *                was prepared ahead of time.
+     */
+    public void nextSegment(final SizedPool<float[]> verticesPool, final Terrain terrain) {
+        if (preparedSegments.size > 0) {
+            terrain.vertices = preparedSegments.removeFirst();
+            terrain.meshVertices = preparedMeshVertices.removeFirst();
+            return;
+        }
+        float[] segment = verticesPool.obtain(nextSegmentSize());
+        cutSegment(segment);
+        terrain.vertices = segment;
+        terrain.meshVertices = null;
+    }
+
+    private boolean endOfCutting() {
+        // If the index for the next segment is the last element in the data points array of the last chunk, then
+        // nothing else needs to be cut.
+        return endOfChunk() && this.terrainChunkIndex == this.terrainSource.getNumChunks() - 1;
+    }
+
+    private boolean endOfChunk() {
+        return this.nextTerrainDataPointsIndex == this.terrainDataPoints.length - INDICES_PER_DATAPOINT;
+    }
+
+    private float getCutBoundary() {
+        // start of the next segment to be cut == end of the last cut segment
+        return this.terrainDataPoints[this.nextTerrainDataPointsIndex];
+    }
+
+    private void nextChunkIfNeeded() {
+        if (endOfChunk()) {
+            // The first data point of the next chunk equals the last data point of this one, so segments carry on
+            // seamlessly from the start of the next chunk.
+            this.terrainChunkIndex++;
+            this.terrainSource.getChunk(this.terrainChunkIndex, this.terrainDataPoints);
+            this.nextTerrainDataPointsIndex = 0;
+        }
+    }
+
+    // terrainIndexTo is exclusive; the index itself will not be part of the next segment
+    private int nextSegmentEnd() {
+        // Note that each coordinate in terrainDataPoints uses 2 indices
+        return Math.min(this.nextTerrainDataPointsIndex + this.terrainDataPointsPerSegment * INDICES_PER_DATAPOINT,
+                this.terrainDataPoints.length);
+    }
+
+    private int nextSegmentSize() {
+        nextChunkIfNeeded();
+        return TerrainGenerator.segmentPolygonSize(this.nextTerrainDataPointsIndex, nextSegmentEnd());
+    }
+
+    private void cutSegment(final float[] segment) {
+        nextChunkIfNeeded();
+        int terrainIndexFrom = this.nextTerrainDataPointsIndex;
+        int terrainIndexTo = nextSegmentEnd();
+        TerrainGenerator.createSegmentPolygon(this.terrainDataPoints, terrainIndexFrom, terrainIndexTo, segment);
+        // starting index of the next segments (inclusive!) equals the data point of its preceding segment.
+        // Again, two indices per data point
+        this.nextTerrainDataPointsIndex = terrainIndexTo - INDICES_PER_DATAPOINT;
+    }
+}
@@ -0,0 +1,27 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Supplies terrain data in fixed-size chunks, so a level never needs to be held in memory as a whole. Chunks can be
+ * requested in any order. Adjacent chunks join up: the last data point of a chunk equals the first data point of
+ * the next chunk.
+ */
+public interface TerrainSource {
+    /**
+     * @return Number of data points in each chunk.
+     */
+    int getPointsPerChunk();
+
+    /**
+     * @return Number of chunks in the level, or -1 if the terrain is endless.
+     */
+    int getNumChunks();
+
+    /**
+     * Writes the data points of a chunk to an array.
+     *
+     * @param chunkIndex Index of the chunk; 0 is the chunk at the start of the level.
+     * @param dataPoints Array to write the data points to, alternating between x and y coordinates, in world units.
+     *                   Must hold at least 2 * getPointsPerChunk() elements.
+     */
+    void getChunk(int chunkIndex, float[] dataPoints);
+}
@@ -0,0 +1,91 @@
+package org.avontuur.dcgracer.utils;
+
+/**
+ * Triangulates terrain segments for rendering.
+ *
+ * A terrain segment is a heightfield: the surface is a list of points with increasing x coordinates, filled down to
+ * the x-axis (y=0). Rather than triangulating the outline of that area as a general polygon, a point on the x-axis is
+ * added below every surface point, and each column between two surface points is split into two triangles. That
+ * covers the same area, takes linear time, and the triangles only depend on the number of points, so they can be
+ * reused for segments of the same size.
+ *
+ * Vertices are interleaved: vertex 2i is surface point i, vertex 2i+1 is the point on the x-axis below it.
+ */
+public final class TerrainTessellator {
+    private TerrainTessellator() {
+    }
+
+    /**
+     * @param numDataPoints Number of points on the surface of the segment
+     * @return Size of the vertex array for the segment: two vertices of two coordinates per surface point
+     */
+    public static int numVertexElements(final int numDataPoints) {
+        return numDataPoints * 4;
+    }
+
+    /**
+     * @param numDataPoints Number of points on the surface of the segment
+     * @return Size of the triangle index array for the segment: two triangles between every two surface points
+     */
+    public static int numTriangleIndices(final int numDataPoints) {
+        return (numDataPoints - 1) * 6;
+    }
+
+    /**
+     * Calculates the vertices of a segment. Does not allocate any memory.
+     *
+     * @param surface Surface points, alternating between x and y coordinates
+     * @param offset Index in surface of the x coordinate of the first point
+     * @param numDataPoints Number of surface points
+     * @param scaleX Factor applied to the x coordinates, e.g. to convert world units to pixels
+     * @param scaleY Factor applied to the y coordinates
+     * @param vertices Array to write the vertices to, of at least {@link #numVertexElements(int)} elements
+     */
+    public static void computeVertices(final float[] surface, final int offset, final int numDataPoints,
+                                       final float scaleX, final float scaleY, final float[] vertices) {
+        computeVertices(surface, offset, numDataPoints, scaleX, scaleY, vertices, 2);
+    }
+
+    /**
+     * Same as {@link #computeVertices(float[], int, int, float, float, float[])}, but for vertices with more
+     * attributes than just a position, such as mesh vertices. Only the x and y coordinates, the first two elements of
+     * each vertex, are written.
+     *
+     * @param vertices Array to write the vertices to, of at least numDataPoints * 2 * stride elements
+     * @param stride Number of array elements per vertex
+     */
+    public static void computeVertices(final float[] surface, final int offset, final int numDataPoints,
+                                       final float scaleX, final float scaleY, final float[] vertices,
+                                       final int stride) {
+        for (int i = 0, j = offset, v = 0; i < numDataPoints; i++, j += 2, v += 2 * stride) {
+            float x = surface[j] * scaleX;
+            vertices[v] = x;
+            vertices[v + 1] = surface[j + 1] * scaleY;
+            vertices[v + stride] = x;
+            vertices[v + stride + 1] = 0;
+        }
+    }
+
+    /**
+     * Calculates the triangles of a segment, as indices of the vertices calculated by
+     * {@link #computeVertices(float[], int, int, float, float, float[])}. Does not allocate any memory.
+     *
+     * @param numDataPoints Number of surface points; at most 16384, as vertex indices have to fit in a short
+     * @param triangles Array to write the indices to, of at least {@link #numTriangleIndices(int)} elements
+     */
+    public static void computeTriangles(final int numDataPoints, final short[] triangles) {
+        for (int i = 0, t = 0; i < numDataPoints - 1; i++, t += 6) {
+            short top = (short)(2 * i);
+            short bottom = (short)(top + 1);
+            short nextTop = (short)(top + 2);
+            short nextBottom = (short)(top + 3);
+            // Both triangles counter-clockwise
+            triangles[t] = top;
+            triangles[t + 1] = bottom;
+            triangles[t + 2] = nextTop;
+            triangles[t + 3] = nextTop;
+            triangles[t + 4] = bottom;
+            triangles[t + 5] = nextBottom;
+        }
+    }
+}
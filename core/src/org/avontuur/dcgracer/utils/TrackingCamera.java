@@ -2,7 +2,7 @@ package org.avontuur.dcgracer.utils;
 
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.math.Vector2;
 
 /**
  * An Orthogonal camera that tracks an object in the world.
@@ -76,6 +76,16 @@ public class TrackingCamera extends OrthographicCamera {
         this.boundaryBottom = boundaryBottom * unitsPerMeter;
     }
 
+    /**
+     * Removes all boundaries, so the camera can move anywhere.
+     */
+    public void clearBoundaries() {
+        boundaryLeft = null;
+        boundaryRight = null;
+        boundaryTop = null;
+        boundaryBottom = null;
+    }
+
     /**
      * Resize the camera viewport using world units
      * @param worldWidth New viewport width, in world units
@@ -87,15 +97,29 @@ public class TrackingCamera extends OrthographicCamera {
     }
 
     /**
-     * Center the camera on a box2d body
-     * @param body Box2d body to center on; position must be in world units, not camera units
+     * Checks whether an axis-aligned box overlaps the area visible through this camera. The camera does not rotate,
+     * so this is exact for anything drawn in a plane.
+     * @param centerX X coordinate of the center of the box, in camera units
+     * @param centerY Y coordinate of the center of the box, in camera units
+     * @param halfWidth Half the width of the box, in camera units
+     * @param halfHeight Half the height of the box, in camera units
+     * @return True if (part of) the box is visible
+     */
+    public boolean isVisible(float centerX, float centerY, float halfWidth, float halfHeight) {
+        return Math.abs(centerX - position.x) <= halfWidth + viewportWidth * zoom / 2
+                && Math.abs(centerY - position.y) <= halfHeight + viewportHeight * zoom / 2;
+    }
+
+    /**
+     * Center the camera on a point in the world
+     * @param target Point to center on, in world units
      * @param deltaTime Time elapsed since last call, used for lerping
      */
-    public void center(Body body, float deltaTime) {
+    public void center(Vector2 target, float deltaTime) {
         translate(
-                centerXorY(body.getWorldCenter().x, position.x, viewportWidth, boundaryLeft, boundaryRight,
+                centerXorY(target.x, position.x, viewportWidth, boundaryLeft, boundaryRight,
                         deltaTime, centerX),
-                centerXorY(body.getWorldCenter().y, position.y, viewportHeight, boundaryTop, boundaryBottom,
+                centerXorY(target.y, position.y, viewportHeight, boundaryTop, boundaryBottom,
                         deltaTime, centerY)
         );
     }
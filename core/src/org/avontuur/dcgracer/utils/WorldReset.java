@@ -0,0 +1,59 @@
+package org.avontuur.dcgracer.utils;
+
+import com.artemis.Aspect;
+import com.artemis.World;
+import com.artemis.utils.IntBag;
+
+import org.avontuur.dcgracer.system.Box2dWorldSystem;
+import org.avontuur.dcgracer.system.CameraUpdateSystem;
+import org.avontuur.dcgracer.system.ComponentMapperSystem;
+import org.avontuur.dcgracer.system.LandscapeUpdateSystem;
+
+/**
+ * Empties a game world, so a new game can be started in it. Starting over in the same world, rather than creating a
+ * new one, keeps the systems and everything they have set up (the physics world, the HUD, meshes and pools); only
+ * the entities have to be created again, see {@link EntityFactory}.
+ */
+public final class WorldReset {
+    private WorldReset() {
+    }
+
+    /**
+     * Deletes all entities and physics bodies, and moves the cameras back to the start. The entities are removed
+     * from the systems when the world is processed next.
+     *
+     * @param artemisWorld World to empty
+     * @param terrainSource Terrain of the level for the new game
+     */
+    public static void reset(World artemisWorld, TerrainSource terrainSource) {
+        LandscapeUpdateSystem landscapeUpdateSystem = artemisWorld.getSystem(LandscapeUpdateSystem.class);
+        reset(artemisWorld, landscapeUpdateSystem.prepareLevel(terrainSource));
+    }
+
+    /**
+     * Same as {@link #reset(World, TerrainSource)}, for a level prepared ahead of time with
+     * {@link LandscapeUpdateSystem#prepareLevel(TerrainSource)}.
+     */
+    public static void reset(World artemisWorld, TerrainSegmenter terrainSegmenter) {
+        ComponentMapperSystem mappers = artemisWorld.getSystem(ComponentMapperSystem.class);
+
+        // Before the terrain entities are gone, so their vertices can be recycled.
+        artemisWorld.getSystem(LandscapeUpdateSystem.class).reset(terrainSegmenter);
+
+        IntBag entities = artemisWorld.getAspectSubscriptionManager().get(Aspect.all()).getEntities();
+        int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            // All bodies and joints are destroyed below, not when the entities are removed.
+            if (mappers.physicsComponents.has(ids[i])) {
+                mappers.physicsComponents.get(ids[i]).body = null;
+            }
+            if (mappers.wheelJointComponents.has(ids[i])) {
+                mappers.wheelJointComponents.get(ids[i]).wheelJoint = null;
+            }
+            artemisWorld.delete(ids[i]);
+        }
+
+        artemisWorld.getSystem(Box2dWorldSystem.class).reset();
+        artemisWorld.getSystem(CameraUpdateSystem.class).reset();
+    }
+}
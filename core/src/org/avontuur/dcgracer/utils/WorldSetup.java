@@ -0,0 +1,65 @@
+package org.avontuur.dcgracer.utils;
+
+import com.artemis.WorldConfigurationBuilder;
+
+import org.avontuur.dcgracer.system.BodyActivationSystem;
+import org.avontuur.dcgracer.system.Box2dWorldSystem;
+import org.avontuur.dcgracer.system.CameraUpdateSystem;
+import org.avontuur.dcgracer.system.CarEngineAcceleratorInputSystem;
+import org.avontuur.dcgracer.system.CarEngineSoundSystem;
+import org.avontuur.dcgracer.system.ComponentMapperSystem;
+import org.avontuur.dcgracer.system.GameOverSystem;
+import org.avontuur.dcgracer.system.HUDDisplaySystem;
+import org.avontuur.dcgracer.system.LandscapeUpdateSystem;
+import org.avontuur.dcgracer.system.MotionSystem;
+import org.avontuur.dcgracer.system.PlayerInputMotionSystem;
+import org.avontuur.dcgracer.system.PlayerInputSystem;
+import org.avontuur.dcgracer.system.RenderCanvasSystem;
+import org.avontuur.dcgracer.system.SpritePositionSystem;
+import org.avontuur.dcgracer.system.SpriteRenderingSystem;
+import org.avontuur.dcgracer.system.TerrainRenderingSystem;
+
+/**
+ * Lists the systems of a game world, in the order they run, so the game and the headless simulation (which leaves
+ * out the systems that draw or play sounds) always run the same simulation.
+ */
+public final class WorldSetup {
+    // Width, in world units (meters), of the visible world
+    public static final float VIEWPORT_WIDTH = 15f;
+
+    private WorldSetup() {
+    }
+
+    /**
+     * @param withPresentation True to include the systems that draw the world and the HUD, and play sounds; these
+     *                         need a graphics context and loaded resources.
+     * @param gameOverListener Gets notified when the main player died, or null to show the game over screen.
+     * @return Builder with all systems added; more can be registered before the world is built.
+     */
+    public static WorldConfigurationBuilder createConfigurationBuilder(boolean withPresentation,
+                                                                     GameOverSystem.GameOverListener gameOverListener) {
+        WorldConfigurationBuilder builder = new WorldConfigurationBuilder()
+                .with(new ComponentMapperSystem())
+                .with(new Box2dWorldSystem())
+                .with(new PlayerInputSystem())
+                .with(new PlayerInputMotionSystem())
+                .with(new CarEngineAcceleratorInputSystem())
+                .with(new MotionSystem());
+        if (withPresentation) {
+            builder.with(new SpritePositionSystem());
+        }
+        builder.with(new CameraUpdateSystem(VIEWPORT_WIDTH))
+                .with(new LandscapeUpdateSystem(VIEWPORT_WIDTH))
+                .with(new BodyActivationSystem(VIEWPORT_WIDTH / 2, VIEWPORT_WIDTH / 4));
+        if (withPresentation) {
+            builder.with(new CarEngineSoundSystem())
+                    .with(new RenderCanvasSystem())
+                    .with(new SpriteRenderingSystem())
+                    //.with(new DebugRenderingSystem())
+                    .with(new TerrainRenderingSystem())
+                    .with(new HUDDisplaySystem());
+        }
+        builder.with(gameOverListener != null ? new GameOverSystem(gameOverListener) : new GameOverSystem());
+        return builder;
+    }
+}
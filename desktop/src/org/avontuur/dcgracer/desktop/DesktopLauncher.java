@@ -3,9 +3,12 @@ package org.avontuur.dcgracer.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import org.avontuur.dcgracer.DCGRacer;
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.NioFileReader;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
+		BakedTerrainSource.setFileReader(new NioFileReader());
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
 		new LwjglApplication(new DCGRacer(), config);
 	}
@@ -0,0 +1,66 @@
+package org.avontuur.dcgracer.desktop;
+
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.ProceduralTerrainSource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Generates the terrain of a level ahead of time, and writes it to a level file that {@link BakedTerrainSource} can
+ * read.
+ *
+ * Arguments, all optional: output file, chunk iterations, range, scaleX, scaleY, roughness, number of chunks and
+ * seed. See {@link ProceduralTerrainSource} for what they mean; the defaults are the ones the game uses when there is
+ * no level file.
+ */
+public class LevelBaker {
+    public static void main(String[] args) throws IOException {
+        String output = args.length > 0 ? args[0] : "levels/level1.level";
+        int chunkIterations = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        float range = args.length > 2 ? Float.parseFloat(args[2]) : 18f;
+        float scaleX = args.length > 3 ? Float.parseFloat(args[3]) : 2f;
+        float scaleY = args.length > 4 ? Float.parseFloat(args[4]) : 0.25f;
+        float roughness = args.length > 5 ? Float.parseFloat(args[5]) : 0.78f;
+        int numChunks = args.length > 6 ? Integer.parseInt(args[6]) : 8;
+        long seed = args.length > 7 ? Long.parseLong(args[7]) : 1;
+        if (numChunks < 1) {
+            throw new IllegalArgumentException("A level file needs a fixed number of chunks");
+        }
+
+        ProceduralTerrainSource source = new ProceduralTerrainSource(chunkIterations, range, scaleX, scaleY,
+                roughness, numChunks, seed);
+        int pointsPerChunk = source.getPointsPerChunk();
+        float[] chunk = new float[pointsPerChunk * 2];
+        ByteBuffer buffer = ByteBuffer.allocate(BakedTerrainSource.HEADER_SIZE + numChunks * chunk.length * 4);
+        buffer.order(BakedTerrainSource.BYTE_ORDER);
+        buffer.putInt(BakedTerrainSource.MAGIC);
+        buffer.putInt(BakedTerrainSource.VERSION);
+        buffer.putInt(pointsPerChunk);
+        buffer.putInt(numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            source.getChunk(i, chunk);
+            buffer.asFloatBuffer().put(chunk);
+            buffer.position(buffer.position() + chunk.length * 4);
+        }
+        buffer.flip();
+
+        File outputFile = new File(output);
+        if (outputFile.getParentFile() != null) {
+            outputFile.getParentFile().mkdirs();
+        }
+        FileOutputStream out = new FileOutputStream(outputFile);
+        try {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            out.close();
+        }
+        System.out.println("Wrote " + numChunks + " chunks of " + pointsPerChunk + " points to " + output);
+    }
+}
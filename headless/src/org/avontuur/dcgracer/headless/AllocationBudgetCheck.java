@@ -0,0 +1,95 @@
+package org.avontuur.dcgracer.headless;
+
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import org.avontuur.dcgracer.DCGRacer;
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.NioFileReader;
+
+/**
+ * Runs the headless simulation, counts the bytes each system allocates per frame, and fails (exits with status 1)
+ * when a frame allocates more than the budget. Reports the bytes per frame of every system, so the offending ones
+ * stand out.
+ *
+ * Only steady-state frames count: the first seconds are skipped, to let the JIT, pools and caches warm up, and so is
+ * the first frame of every new game, in which its entities are added.
+ *
+ * Arguments, both optional: number of seconds to simulate, and the budget in bytes per frame.
+ */
+public class AllocationBudgetCheck extends HeadlessSimulation {
+    private static final float DEFAULT_SIMULATED_SECONDS = 120f;
+    // Bytes per frame allowed by default. Adding and removing terrain segments still allocates a little (a few bytes
+    // per frame on average); lower this as the frame loop gets closer to not allocating at all.
+    private static final float DEFAULT_BUDGET = 16;
+    // Simulated seconds skipped before counting
+    private static final float WARMUP_SECONDS = 20f;
+    private static final float FRAME_TIME = 1 / 60f;
+
+    private final float budget;
+    private final AllocationMeasuringInvocationStrategy allocations = new AllocationMeasuringInvocationStrategy();
+    // Frame number until which nothing is counted
+    private long skipUntilFrame = (long)(WARMUP_SECONDS / FRAME_TIME);
+    private boolean passed;
+
+    /**
+     * @param simulatedSecondsTotal Number of seconds of game time to simulate
+     * @param budget Maximum average number of bytes allocated per frame
+     */
+    public AllocationBudgetCheck(float simulatedSecondsTotal, float budget) {
+        super(simulatedSecondsTotal);
+        this.budget = budget;
+    }
+
+    @Override
+    protected void configureWorld(WorldConfigurationBuilder worldConfigBuilder) {
+        worldConfigBuilder.register(allocations);
+    }
+
+    @Override
+    public void render() {
+        allocations.setMeasuring(getFrames() >= skipUntilFrame);
+        super.render();
+    }
+
+    @Override
+    protected void gameStarted() {
+        // The next frame adds the new game's entities.
+        skipUntilFrame = Math.max(skipUntilFrame, getFrames() + 1);
+    }
+
+    @Override
+    protected void finished() {
+        float total = 0;
+        DCGRacer.log.info("Bytes allocated per frame, over " + allocations.getMeasuredFrames() + " frames:");
+        for (int i = 0; i < allocations.getSystemCount(); i++) {
+            float bytesPerFrame = allocations.getBytesPerFrame(i);
+            total += bytesPerFrame;
+            if (bytesPerFrame > 0) {
+                DCGRacer.log.info(String.format("  %-28s %10.1f", allocations.getSystemName(i), bytesPerFrame));
+            }
+        }
+        passed = total <= budget;
+        DCGRacer.log.info(String.format("Total %.1f bytes per frame; budget %.1f: %s", total, budget,
+                passed ? "OK" : "OVER BUDGET"));
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    public static void main (String[] arg) {
+        float simulatedSeconds = arg.length > 0 ? Float.parseFloat(arg[0]) : DEFAULT_SIMULATED_SECONDS;
+        float budget = arg.length > 1 ? Float.parseFloat(arg[1]) : DEFAULT_BUDGET;
+
+        BakedTerrainSource.setFileReader(new NioFileReader());
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0;
+        new HeadlessApplication(new AllocationBudgetCheck(simulatedSeconds, budget), config);
+    }
+}
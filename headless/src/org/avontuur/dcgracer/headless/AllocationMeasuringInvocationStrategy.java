@@ -0,0 +1,102 @@
+package org.avontuur.dcgracer.headless;
+
+import com.artemis.SystemInvocationStrategy;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Processes the systems of a world in order, like artemis' default strategy, and counts the bytes each of them
+ * allocates on the heap. Uses the allocation counters of HotSpot-based JVMs, so this only works there.
+ *
+ * Entity changes that are flushed before a system runs are counted towards that system.
+ */
+public class AllocationMeasuringInvocationStrategy extends SystemInvocationStrategy {
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    // Bytes allocated by each system in the measured frames, in the order the systems are processed
+    private long[] systemBytes;
+    private String[] systemNames;
+    private long measuredFrames;
+    private boolean measuring;
+    // Bytes the JVM reports for reading the counter itself, subtracted from each measurement
+    private long overhead;
+
+    public AllocationMeasuringInvocationStrategy() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+            throw new GdxRuntimeException("This JVM can't count allocated bytes per thread");
+        }
+        threadMXBean = (com.sun.management.ThreadMXBean)bean;
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        systemBytes = new long[systems.size()];
+        systemNames = new String[systems.size()];
+        for (int i = 0; i < systems.size(); i++) {
+            systemNames[i] = ClassReflection.getSimpleName(systems.get(i).getClass());
+        }
+
+        long threadId = Thread.currentThread().getId();
+        overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, threadMXBean.getThreadAllocatedBytes(threadId) - start);
+        }
+    }
+
+    @Override
+    protected void process() {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0, s = systems.size(); s > i; i++) {
+            if (disabled.get(i)) {
+                continue;
+            }
+
+            long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            updateEntityStates();
+            systems.get(i).process();
+            if (measuring) {
+                systemBytes[i] += Math.max(0, threadMXBean.getThreadAllocatedBytes(threadId) - start - overhead);
+            }
+        }
+        updateEntityStates();
+        if (measuring) {
+            measuredFrames++;
+        }
+    }
+
+    /**
+     * @param measuring True to count the allocations of the frames processed from now on
+     */
+    public void setMeasuring(boolean measuring) {
+        this.measuring = measuring;
+    }
+
+    /**
+     * @return Number of frames counted
+     */
+    public long getMeasuredFrames() {
+        return measuredFrames;
+    }
+
+    public int getSystemCount() {
+        return systemBytes.length;
+    }
+
+    public String getSystemName(int index) {
+        return systemNames[index];
+    }
+
+    /**
+     * @return Average number of bytes allocated by a system per counted frame
+     */
+    public float getBytesPerFrame(int index) {
+        return measuredFrames > 0 ? (float)systemBytes[index] / measuredFrames : 0;
+    }
+}
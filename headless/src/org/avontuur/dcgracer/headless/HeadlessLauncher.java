@@ -0,0 +1,24 @@
+package org.avontuur.dcgracer.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import org.avontuur.dcgracer.utils.BakedTerrainSource;
+import org.avontuur.dcgracer.utils.NioFileReader;
+
+/**
+ * Runs the game simulation without a display. Takes the number of seconds to simulate as optional argument.
+ */
+public class HeadlessLauncher {
+	private static final float DEFAULT_SIMULATED_SECONDS = 300f;
+
+	public static void main (String[] arg) {
+		float simulatedSeconds = arg.length > 0 ? Float.parseFloat(arg[0]) : DEFAULT_SIMULATED_SECONDS;
+
+		BakedTerrainSource.setFileReader(new NioFileReader());
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// Don't wait in between frames; simulate as fast as the CPU allows.
+		config.renderInterval = 0;
+		new HeadlessApplication(new HeadlessSimulation(simulatedSeconds), config);
+	}
+}
@@ -0,0 +1,166 @@
+package org.avontuur.dcgracer.headless;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import org.avontuur.dcgracer.DCGRacer;
+import org.avontuur.dcgracer.system.BodyActivationSystem;
+import org.avontuur.dcgracer.system.CameraUpdateSystem;
+import org.avontuur.dcgracer.system.GameOverSystem;
+import org.avontuur.dcgracer.system.LandscapeUpdateSystem;
+import org.avontuur.dcgracer.system.PlayerInputSystem;
+import org.avontuur.dcgracer.utils.EntityFactory;
+import org.avontuur.dcgracer.utils.WorldReset;
+import org.avontuur.dcgracer.utils.WorldSetup;
+
+/**
+ * Runs the game loop with only the simulation systems; nothing is drawn and no sounds are played. Each frame
+ * advances the world by a fixed amount of time, as fast as the CPU allows, with the accelerator held down. When the
+ * player dies, a new game is started. When done, reports how many seconds were simulated per wall-clock second.
+ */
+public class HeadlessSimulation extends ApplicationAdapter {
+    // Simulated duration of a single frame, in seconds
+    private static final float FRAME_TIME = 1 / 60f;
+    // Simulated screen size, used to size the cameras
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+    // Interval, in simulated seconds, between progress reports
+    private static final float REPORT_INTERVAL = 60f;
+
+    private final float simulatedSecondsTotal;
+
+    private World artemisWorld;
+    private EntityFactory entityFactory;
+    private boolean gameOver;
+    private boolean finished;
+
+    private long startTime;
+    private long frames;
+    private float simulatedSeconds;
+    private float nextReport = REPORT_INTERVAL;
+    private int games;
+
+    /**
+     * @param simulatedSecondsTotal Number of seconds of game time to simulate
+     */
+    public HeadlessSimulation(float simulatedSecondsTotal) {
+        this.simulatedSecondsTotal = simulatedSecondsTotal;
+    }
+
+    @Override
+    public void create() {
+        // Terrain generation is chatty at debug level
+        Gdx.app.setLogLevel(Application.LOG_INFO);
+        DCGRacer.log.info("Simulating " + simulatedSecondsTotal + "s of game time");
+
+        startTime = TimeUtils.nanoTime();
+        artemisWorld = createWorld();
+        // Cameras are sized by the screen; there is none, so pretend.
+        artemisWorld.getSystem(CameraUpdateSystem.class).resize(SCREEN_WIDTH, SCREEN_HEIGHT);
+        entityFactory = new EntityFactory(artemisWorld, false);
+        startGame();
+    }
+
+    @Override
+    public void render() {
+        if (finished) {
+            // exit() only takes effect after this frame
+            return;
+        }
+        if (gameOver) {
+            // Same as the game: start over in the same world.
+            WorldReset.reset(artemisWorld, LandscapeUpdateSystem.createDefaultTerrainSource());
+            startGame();
+        }
+
+        artemisWorld.setDelta(FRAME_TIME);
+        artemisWorld.process();
+        frames++;
+        simulatedSeconds = frames * FRAME_TIME;
+
+        if (simulatedSeconds >= simulatedSecondsTotal) {
+            finished = true;
+            report();
+            finished();
+            Gdx.app.exit();
+        } else if (simulatedSeconds >= nextReport) {
+            nextReport += REPORT_INTERVAL;
+            report();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (entityFactory != null) {
+            entityFactory.dispose();
+        }
+        if (artemisWorld != null) {
+            artemisWorld.dispose();
+        }
+    }
+
+    private void startGame() {
+        gameOver = false;
+        games++;
+        entityFactory.createPlayerEntity();
+        entityFactory.createCarBodyEntity();
+
+        // Floor it.
+        artemisWorld.getSystem(PlayerInputSystem.class).keyDown(Input.Keys.RIGHT);
+        gameStarted();
+    }
+
+    private World createWorld() {
+        // Same as the game's world, minus the systems that draw or play sounds.
+        WorldConfigurationBuilder worldConfigBuilder = WorldSetup.createConfigurationBuilder(false,
+                new GameOverSystem.GameOverListener() {
+                    @Override
+                    public void gameOver() {
+                        gameOver = true;
+                    }
+                });
+        configureWorld(worldConfigBuilder);
+
+        return new World(worldConfigBuilder.build());
+    }
+
+    /**
+     * Called before the world is created, e.g. to register an invocation strategy.
+     */
+    protected void configureWorld(WorldConfigurationBuilder worldConfigBuilder) {
+    }
+
+    /**
+     * Called after the entities of a new game have been created. They are added to the world when it's processed
+     * next.
+     */
+    protected void gameStarted() {
+    }
+
+    /**
+     * Called when the simulation is done, right before the application exits.
+     */
+    protected void finished() {
+    }
+
+    /**
+     * @return Number of frames simulated so far
+     */
+    protected long getFrames() {
+        return frames;
+    }
+
+    private void report() {
+        float wallSeconds = (TimeUtils.nanoTime() - startTime) / 1000000000f;
+        int liveSegments = artemisWorld.getSystem(LandscapeUpdateSystem.class).getLiveSegmentCount();
+        int inactiveBodies = artemisWorld.getSystem(BodyActivationSystem.class).getInactiveCount();
+        DCGRacer.log.info(String.format("%d frames, %d games: %.1fs simulated in %.2fs; %.1f simulated s/s, %.0f fps, "
+                + "%d live terrain segments, %d inactive bodies", frames, games, simulatedSeconds, wallSeconds,
+                simulatedSeconds / wallSeconds, frames / wallSeconds, liveSegments, inactiveBodies));
+    }
+}